@@ -0,0 +1,93 @@
+package compiler.benchmarks;
+
+import compiler.lexer.Lexer;
+import compiler.lexer.Tag;
+import compiler.lexer.TokenBuffer;
+import compiler.lexer.tokens.Token;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast the lexer turns source code into tokens.
+ *
+ * Each benchmark lexes a whole synthetic program, the same as one compilation does. Besides the programs per
+ * second, the tokens and bytes counters report tokens per second and bytes per second. Run with
+ * "-prof gc" to also report the allocation rate and bytes allocated per program.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+    @Param({"1024", "65536", "1048576"})
+    public int size;
+
+    @Param({"IDENTIFIERS", "NUMBERS", "OPERATORS", "MIXED"})
+    public SyntheticPrograms.Density density;
+
+    private ByteBuffer source;
+
+    /**
+     * Counts the tokens and bytes lexed, which JMH reports as rates per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long tokens;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Holds a token buffer that is reused for every program, the same as a long-running compiler would.
+     */
+    @State(Scope.Thread)
+    public static class Buffer {
+        public final TokenBuffer tokens = new TokenBuffer();
+    }
+
+    @Setup(Level.Trial)
+    public void generateSource() {
+        source = ByteBuffer.wrap(SyntheticPrograms.generate(size, density, 42));
+    }
+
+    /**
+     * Lex every token of the program one at a time with getNextToken(), as the parser does.
+     */
+    @Benchmark
+    public int getNextToken(Throughput throughput, Blackhole blackhole) {
+        Lexer lexer = new Lexer("benchmark", source);
+        int count = 0;
+        Token token;
+        do {
+            token = lexer.getNextToken();
+            blackhole.consume(token);
+            count++;
+        } while (token.tag != Tag.EOF);
+
+        throughput.tokens += count;
+        throughput.bytes += source.limit();
+        return count;
+    }
+
+    /**
+     * Lex every token of the program into a reused packed buffer with tokenize().
+     */
+    @Benchmark
+    public int tokenize(Throughput throughput, Buffer buffer) {
+        TokenBuffer tokens = new Lexer("benchmark", source).tokenize(buffer.tokens);
+        throughput.tokens += tokens.size();
+        throughput.bytes += source.limit();
+        return tokens.size();
+    }
+}
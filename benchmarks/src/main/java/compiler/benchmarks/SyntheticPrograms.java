@@ -0,0 +1,139 @@
+package compiler.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic programs for the benchmarks.
+ *
+ * Programs are made of one block that declares the short variables, followed by nested blocks of assignment
+ * statements, and the mix of tokens in the statements is controlled by a Density. Each nested block first
+ * declares the long identifiers its statements use, so every identifier is declared and the programs lex and
+ * parse, but they are not meant to type check. The same size, density, and seed always give the same program,
+ * so results are comparable between runs.
+ */
+public class SyntheticPrograms {
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "<", "<=", ">", ">=", "==", "!=", "&&", "||"};
+    // Number of assignment statements in each nested block.
+    private static final int STATEMENTS_PER_BLOCK = 8;
+
+    /**
+     * The kind of token that makes up most of a program.
+     */
+    public enum Density {
+        IDENTIFIERS, // Long, mostly distinct identifiers.
+        NUMBERS, // Integer and real literals of varying length.
+        OPERATORS, // Short names joined by one and two character operators.
+        MIXED // An even mix of the above, similar to hand written code.
+    }
+
+    /**
+     * Generate a program of about the given size.
+     *
+     * @param size the approximate number of bytes in the program.
+     * @param density the kind of token that makes up most of the program.
+     * @param seed the seed for the random choices.
+     * @return the source code of the program.
+     */
+    public static byte[] generate(int size, Density density, long seed) {
+        Random random = new Random(seed);
+        StringBuilder program = new StringBuilder(size + 256);
+        program.append("{\n");
+        for (int i = 0; i < 16; i++)
+            program.append("    int v").append(i).append("; float f").append(i).append(";\n");
+
+        while (program.length() < size) {
+            // The statements are generated first, to find the identifiers the block has to declare.
+            Set<String> identifiers = new LinkedHashSet<>();
+            StringBuilder statements = new StringBuilder();
+            for (int statement = 0; statement < STATEMENTS_PER_BLOCK; statement++) {
+                statements.append("        ").append(variable(random)).append(" = ");
+                int terms = 2 + random.nextInt(6);
+                for (int i = 0; i < terms; i++) {
+                    if (i > 0)
+                        statements.append(' ').append(operator(random, density)).append(' ');
+                    statements.append(term(random, density, identifiers));
+                }
+                statements.append(";\n");
+            }
+
+            program.append("    {\n");
+            for (String identifier : identifiers)
+                program.append("        int ").append(identifier).append(";\n");
+            program.append(statements).append("    }\n");
+        }
+        program.append("}\n");
+        return program.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Generate a term of an expression, chosen according to the density.
+     *
+     * @param random the source of random choices.
+     * @param density the kind of token that makes up most of the program.
+     * @param identifiers the long identifiers used so far in the block, to which any new one is added.
+     * @return the text of the term.
+     */
+    private static String term(Random random, Density density, Set<String> identifiers) {
+        return switch (density) {
+            case IDENTIFIERS -> identifier(random, identifiers);
+            case NUMBERS -> number(random);
+            case OPERATORS -> variable(random);
+            case MIXED -> switch (random.nextInt(3)) {
+                case 0 -> identifier(random, identifiers);
+                case 1 -> number(random);
+                default -> variable(random);
+            };
+        };
+    }
+
+    /**
+     * Generate a binary operator. Programs that are not operator dense mostly use single character operators.
+     *
+     * @param random the source of random choices.
+     * @param density the kind of token that makes up most of the program.
+     * @return the text of the operator.
+     */
+    private static String operator(Random random, Density density) {
+        if (density != Density.OPERATORS && density != Density.MIXED)
+            return OPERATORS[random.nextInt(4)];
+        return OPERATORS[random.nextInt(OPERATORS.length)];
+    }
+
+    /**
+     * Generate one of the short declared variable names.
+     *
+     * @param random the source of random choices.
+     * @return the name of a variable.
+     */
+    private static String variable(Random random) {
+        return (random.nextBoolean() ? "v" : "f") + random.nextInt(16);
+    }
+
+    /**
+     * Generate a long identifier from a large set of names, so most identifiers are seen only a few times.
+     *
+     * @param random the source of random choices.
+     * @param identifiers the long identifiers used so far in the block, which the identifier is added to.
+     * @return the identifier.
+     */
+    private static String identifier(Random random, Set<String> identifiers) {
+        String identifier = "value" + Integer.toString(random.nextInt(1 << 16), 36) + "total";
+        identifiers.add(identifier);
+        return identifier;
+    }
+
+    /**
+     * Generate an integer or real literal.
+     *
+     * @param random the source of random choices.
+     * @return the text of the literal.
+     */
+    private static String number(Random random) {
+        if (random.nextBoolean())
+            return Integer.toString(random.nextInt(1_000_000));
+        return random.nextInt(10_000) + "." + random.nextInt(1000);
+    }
+}
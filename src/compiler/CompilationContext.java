@@ -0,0 +1,38 @@
+package compiler;
+
+import compiler.lexer.Tag;
+import compiler.lexer.tokens.Word;
+import compiler.parser.ast.nodes.expressions.TempNode;
+import compiler.parser.ast.nodes.terminals.LabelNode;
+
+/**
+ * The state that belongs to a single compilation.
+ *
+ * Temporary variables and labels are numbered from 1 in each compilation, so the output for a file does
+ * not depend on what else was compiled before it. Nothing here is shared, so compilations can run
+ * concurrently in one process as long as each one has its own context.
+ */
+public class CompilationContext {
+    private int tempCount = 0; // Number of temporary variables created so far.
+    private int labelCount = 0; // Number of labels created so far.
+
+    /**
+     * Creates a new temporary variable with a unique identifier in this compilation.
+     *
+     * @return A new TempNode with a unique identifier. (e.g. t1, t2, t3, ...)
+     */
+    public TempNode newTemp() {
+        tempCount++;
+        return new TempNode(new Word("t" + tempCount, Tag.ID), "t" + tempCount);
+    }
+
+    /**
+     * Creates a new label with a unique identifier in this compilation.
+     *
+     * @return A new LabelNode with a unique identifier. (e.g. L1, L2, L3, ...)
+     */
+    public LabelNode newLabel() {
+        labelCount++;
+        return new LabelNode(new Word("L" + labelCount, Tag.ID), "L" + labelCount);
+    }
+}
@@ -1,13 +1,21 @@
 package compiler;
 
 import compiler.argparse.ArgumentParser;
+import compiler.cache.AstCache;
 import compiler.errors.*;
-import compiler.lexer.Lexer;
+import compiler.lexer.*;
 import compiler.parser.Parser;
+import compiler.parser.ast.nodes.structures.ProgramNode;
+import compiler.tac.ExpressionDag;
 import compiler.tac.IntermediateCodeGenerator;
 import compiler.tac.IntermediateCodePrinter;
+import compiler.tac.StorageLayout;
 import compiler.typechecker.TypeChecker;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Entry point for the compiler.
  *
@@ -16,29 +24,101 @@ import compiler.typechecker.TypeChecker;
 public class Main {
     public static void main(String[] args) {
         ArgumentParser argumentParser = ArgumentParser.parseArguments(args);
-        Lexer lexer = new Lexer(argumentParser.inputFilename());
+        ByteBuffer source = Lexer.mapFile(argumentParser.inputFilename());
+
+        // An unchanged file is loaded from the cache already type checked, and goes straight to code generation.
+        String cacheDirectory = argumentParser.cacheDirectory();
+        AstCache cache = cacheDirectory == null ? null : new AstCache(cacheDirectory);
+        String key = cache == null ? null : AstCache.key(source);
+        ProgramNode cached = cache == null ? null : cache.load(key);
+        if (cached != null) {
+            generate(cached, argumentParser);
+            return;
+        }
 
-        try {
-            compile(lexer, argumentParser.outputFilename());
-        } catch (CompilerException e) {
-            printError(e, lexer);
+        Parser parser = parse(argumentParser, source);
+        List<Diagnostic> diagnostics = compile(parser, cache, key, argumentParser);
+        if (!diagnostics.isEmpty()) {
+            new ErrorPrinter().printErrors(diagnostics);
             System.exit(1);
         }
     }
 
-    private static void compile(Lexer lexer, String outputFilename) {
-        Parser parser = new Parser(lexer);
+    /**
+     * Parse the input file.
+     *
+     * Tokens are either lexed as the parser asks for them, or lexed all up front into a packed buffer,
+     * optionally in parallel. Parsing the statements of the outer block in parallel needs the packed buffer,
+     * so it also lexes up front.
+     *
+     * @param argumentParser the parsed command line arguments.
+     * @param source the contents of the input file.
+     * @return the parser, holding the parsed program and any errors found.
+     */
+    private static Parser parse(ArgumentParser argumentParser, ByteBuffer source) {
+        String filename = argumentParser.inputFilename();
+        Lexer lexer = new Lexer(filename, source);
+
+        TokenBuffer buffer;
+        if (argumentParser.parallelLex()) {
+            buffer = ParallelLexer.tokenize(filename, source, lexer.getNameTable(), new TokenBuffer(),
+                    ForkJoinPool.commonPool());
+            assert ParallelLexer.matchesSequential(buffer) : "parallel lexing differs from sequential lexing";
+        } else if (argumentParser.preLex() || argumentParser.parallelParse()) {
+            buffer = lexer.tokenize(new TokenBuffer());
+        } else {
+            return new Parser(lexer);
+        }
+        if (argumentParser.parallelParse())
+            return new Parser(buffer, ForkJoinPool.commonPool());
+        return new Parser(new TokenCursor(buffer));
+    }
+
+    /**
+     * Compile the parsed program, and write its intermediate code to the output file.
+     *
+     * Every error in a stage is found before the compilation stops. A program with syntax errors is not type
+     * checked, because most of its type errors would only be caused by the syntax errors, and no intermediate
+     * code is written for a program with errors. A program without errors is stored in the cache, if there is
+     * one.
+     *
+     * @param parser the parser, after it has parsed the program.
+     * @param cache the cache to store the type checked program in, or null if there is none.
+     * @param key the key of the source in the cache, or null if there is no cache.
+     * @param argumentParser the parsed command line arguments.
+     * @return the errors found in the program, in the order they were found, or an empty list if there were none.
+     */
+    private static List<Diagnostic> compile(Parser parser, AstCache cache, String key,
+                                            ArgumentParser argumentParser) {
+        if (!parser.diagnostics.isEmpty())
+            return parser.diagnostics;
+
         TypeChecker typeChecker = new TypeChecker(parser);
-        IntermediateCodeGenerator interCode = new IntermediateCodeGenerator(typeChecker);
-        IntermediateCodePrinter interCodePrinter = new IntermediateCodePrinter(interCode, outputFilename);
+        if (!typeChecker.errors.isEmpty()) {
+            // Type errors are printed with the lines around them, so they share the context of the whole source.
+            ErrorContext errorContext = parser.lexer.getErrorContext();
+            return typeChecker.errors.stream().map(e -> new Diagnostic(e, errorContext)).toList();
+        }
+
+        if (cache != null)
+            cache.store(key, typeChecker.program);
+        generate(typeChecker.program, argumentParser);
+        return List.of();
     }
 
-    private static void printError(CompilerException e, Lexer lexer){
-        ErrorPrinter errorPrinter = new ErrorPrinter();
-            if (e instanceof LexicalException || e instanceof SyntaxException) {
-                errorPrinter.printError(lexer.getErrorContext(), e);
-            } else if (e instanceof TypeException) {
-                errorPrinter.printError(lexer.getErrorContext().lines, lexer.getErrorContext(), (TypeException) e);
-            }
+    /**
+     * Generate the intermediate code of a type checked program, and write it to the output file.
+     *
+     * If asked to, the variables are then laid out in a frame, and the size of the frame is printed.
+     *
+     * @param program the program, whose expressions hold their types.
+     * @param argumentParser the parsed command line arguments.
+     */
+    private static void generate(ProgramNode program, ArgumentParser argumentParser) {
+        ExpressionDag dag = argumentParser.shareExpressions() ? ExpressionDag.build(program) : null;
+        IntermediateCodeGenerator interCode = new IntermediateCodeGenerator(program, dag, new CompilationContext());
+        new IntermediateCodePrinter(interCode, argumentParser.outputFilename());
+        if (argumentParser.printLayout())
+            System.out.println(StorageLayout.build(program, interCode.currentStatements));
     }
 }
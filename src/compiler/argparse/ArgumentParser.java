@@ -1,20 +1,54 @@
 package compiler.argparse;
 
-public record ArgumentParser(String inputFilename, String outputFilename) {
+public record ArgumentParser(String inputFilename, String outputFilename, boolean preLex, boolean parallelLex,
+                             boolean parallelParse, String cacheDirectory,
+                             boolean shareExpressions, boolean printLayout) {
 
     public static ArgumentParser parseArguments(String[] args) {
         // Default values
         String inputFile = "input.txt";
         String outputFile = "output.txt";
+        boolean preLex = false;
+        boolean parallelLex = false;
+        boolean parallelParse = false;
+        String cacheDirectory = null;
+        boolean shareExpressions = false;
+        boolean printLayout = false;
 
         for (int i = 0; i < args.length; i++)
             switch (args[i]) {
                 case "-i":
                 case "--input":
                     inputFile = args[++i];
+                    break;
                 case "-o":
                 case "--output":
                     outputFile = args[++i];
+                    break;
+                case "-p":
+                case "--pre-lex":
+                    preLex = true;
+                    break;
+                case "-L":
+                case "--parallel-lex":
+                    parallelLex = true;
+                    break;
+                case "-P":
+                case "--parallel-parse":
+                    parallelParse = true;
+                    break;
+                case "-c":
+                case "--cache":
+                    cacheDirectory = args[++i];
+                    break;
+                case "-s":
+                case "--share-exprs":
+                    shareExpressions = true;
+                    break;
+                case "-l":
+                case "--layout":
+                    printLayout = true;
+                    break;
                 case "-h":
                 case "--help":
                     printHelp();
@@ -24,7 +58,8 @@ public record ArgumentParser(String inputFilename, String outputFilename) {
                     printHelp();
                     System.exit(1);
             }
-        return new ArgumentParser(inputFile, outputFile);
+        return new ArgumentParser(inputFile, outputFile, preLex, parallelLex, parallelParse, cacheDirectory,
+                shareExpressions, printLayout);
     }
 
     private static void printHelp() {
@@ -32,6 +67,12 @@ public record ArgumentParser(String inputFilename, String outputFilename) {
         System.out.println("Options:");
         System.out.println("  -i, --input <file>    Specify the input file to compile.");
         System.out.println("  -o, --output <file>   Specify the output file to write the compiled code to.");
+        System.out.println("  -p, --pre-lex         Lex the whole file into a packed token buffer before parsing.");
+        System.out.println("  -L, --parallel-lex    Lex the whole file in parallel chunks before parsing.");
+        System.out.println("  -P, --parallel-parse  Parse the statements of the outer block in parallel.");
+        System.out.println("  -c, --cache <dir>     Reuse the type checked AST of unchanged files from a directory.");
+        System.out.println("  -s, --share-exprs     Share identical expressions, and reuse their temporaries.");
+        System.out.println("  -l, --layout          Assign frame slots to variables, and print the frame size.");
         System.out.println("  -h, --help            Print this help message.");
     }
 }
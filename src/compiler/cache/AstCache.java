@@ -0,0 +1,114 @@
+package compiler.cache;
+
+import compiler.lexer.NameTable;
+import compiler.parser.ast.arena.AstArena;
+import compiler.parser.ast.nodes.structures.ProgramNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * An on-disk cache of type checked ASTs, so an unchanged file is not lexed, parsed, or type checked again.
+ *
+ * Each entry is the binary form of the AstArena of a program, stored in a file named after a SHA-256 hash of
+ * the source and the compiler version. A source that has changed in any way hashes to a different file, so
+ * entries never need to be invalidated, and a new compiler version never reads the entries of an old one.
+ * Only programs without errors are stored, since a program with errors never reaches code generation.
+ *
+ * Entries are read by mapping the file into memory and decoding the arena straight out of the mapping. They
+ * are written to a temporary file which is then moved into place, so a compilation running at the same time
+ * never reads a file that is only partly written. The cache only ever speeds up a compilation: an entry that
+ * cannot be read or written, or that has been damaged, is treated as missing.
+ */
+public class AstCache {
+    // Changes whenever the parser or type checker would give a different AST for the same source.
+    private static final String COMPILER_VERSION = "1";
+
+    private final Path directory;
+
+    /**
+     * Create a cache that stores its entries in the given directory, which is created when the first entry is
+     * stored if it does not exist yet.
+     *
+     * @param directory the directory holding the entries.
+     */
+    public AstCache(String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Get the key of the entry for a source, which is the hash of the compiler version and the source.
+     *
+     * @param source the source code of the file.
+     * @return the key as a hexadecimal string.
+     */
+    public static String key(ByteBuffer source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(COMPILER_VERSION.getBytes());
+            digest.update(source.duplicate().clear());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Load the type checked program stored for the given key.
+     *
+     * @param key the key of the source, from key().
+     * @return the flattened program with the types of its expressions, or null if there is no readable entry.
+     */
+    public ProgramNode load(String key) {
+        Path path = directory.resolve(key + ".ast");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                return null;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            AstArena arena = AstArena.decode(buffer, new NameTable());
+            if (arena == null || arena.getRoot() == AstArena.NONE)
+                return null;
+            ProgramNode program = new ProgramNode();
+            program.arena = arena;
+            return program;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store a type checked program under the given key.
+     *
+     * @param key the key of the source, from key().
+     * @param program the program, after it has been type checked without errors.
+     */
+    public void store(String key, ProgramNode program) {
+        AstArena arena = program.arena;
+        ByteBuffer buffer = ByteBuffer.allocate(arena.encodedSize());
+        arena.encode(buffer);
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, directory.resolve(key + ".ast"), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // The program compiles the same without the entry, only slower next time.
+            try {
+                if (temporary != null)
+                    Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
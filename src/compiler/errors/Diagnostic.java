@@ -0,0 +1,24 @@
+package compiler.errors;
+
+/**
+ * An error found in the source code, together with the context needed to print it.
+ *
+ * The context has to be taken from the lexer at the moment the error is found, because the lexer moves on
+ * when the compiler recovers from the error and carries on looking for more. Diagnostics are collected as
+ * the program is compiled, and printed together at the end by the ErrorPrinter.
+ */
+public class Diagnostic {
+    public final CompilerException exception;
+    public final ErrorContext context;
+
+    /**
+     * Create a new Diagnostic for an error and its context.
+     *
+     * @param exception The exception describing the error.
+     * @param context The context of the error in the source code.
+     */
+    public Diagnostic(CompilerException exception, ErrorContext context) {
+        this.exception = exception;
+        this.context = context;
+    }
+}
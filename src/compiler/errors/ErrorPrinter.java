@@ -19,6 +19,20 @@ public class ErrorPrinter {
     private static final String GREEN = "\u001B[32m";
     private static final String RESET = "\u001B[0m";
 
+    /**
+     * Print every error found in the source code, in the order they were found.
+     *
+     * @param diagnostics The errors to print, with their contexts.
+     */
+    public void printErrors(List<Diagnostic> diagnostics) {
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.exception instanceof TypeException e)
+                printError(diagnostic.context.lines, diagnostic.context, e);
+            else
+                printError(diagnostic.context, diagnostic.exception);
+        }
+    }
+
     /**
      * Print a lexical or syntax error message to the console.
      *
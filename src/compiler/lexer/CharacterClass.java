@@ -0,0 +1,80 @@
+package compiler.lexer;
+
+/**
+ * Table driven character classification for the lexer.
+ *
+ * Every ASCII character is assigned a set of class bits once, when the class is loaded, so the lexer can
+ * categorize a character, decide whether it ends a number, or recognize an operator with a single array
+ * load and a bit test instead of building strings and probing sets.
+ *
+ * Characters outside of ASCII fall back to the equivalent java.lang.Character methods, so identifiers
+ * containing non-ASCII letters are classified exactly as before.
+ *
+ * Example:
+ *  CharacterClass.is('+', CharacterClass.OPERATOR) returns true
+ */
+public class CharacterClass {
+    public static final int
+    WHITESPACE = 1, DIGIT = 2, LETTER = 4, OPERATOR = 8, PUNCTUATION = 16, NUMBER_END = 32;
+
+    private static final String OPERATOR_CHARACTERS = "<>=!&|+-*/";
+    private static final String PUNCTUATION_CHARACTERS = ";(){}[]";
+    // Characters besides operators that may directly follow a number. (e.g. "5;" or "(5)")
+    private static final String NUMBER_END_CHARACTERS = ";)}] \n\t\r";
+
+    // Class bits for each ASCII character, indexed by the character value.
+    private static final byte[] table = new byte[128];
+
+    static {
+        for (char c = 0; c < table.length; c++) {
+            int bits = 0;
+            if (Character.isWhitespace(c)) bits |= WHITESPACE;
+            if (Character.isDigit(c)) bits |= DIGIT;
+            if (Character.isLetter(c)) bits |= LETTER;
+            if (OPERATOR_CHARACTERS.indexOf(c) >= 0) bits |= OPERATOR | NUMBER_END;
+            if (PUNCTUATION_CHARACTERS.indexOf(c) >= 0) bits |= PUNCTUATION;
+            if (NUMBER_END_CHARACTERS.indexOf(c) >= 0) bits |= NUMBER_END;
+            table[c] = (byte) bits;
+        }
+    }
+
+    /**
+     * Get the class bits of the given character.
+     *
+     * @param c the character to classify.
+     * @return the class bits of the character, combined with bitwise or.
+     */
+    public static int of(char c) {
+        if (c < table.length)
+            return table[c];
+        return classifyNonAscii(c);
+    }
+
+    /**
+     * Check if the character belongs to any of the given classes.
+     *
+     * @param c the character to check.
+     * @param classes the class bits to check for, combined with bitwise or.
+     * @return true if the character has any of the given class bits, false otherwise.
+     */
+    public static boolean is(char c, int classes) {
+        return (of(c) & classes) != 0;
+    }
+
+    /**
+     * Classify a character outside of ASCII using the java.lang.Character methods.
+     *
+     * None of the operators or punctuation of the language are outside of ASCII, so only whitespace,
+     * digits and letters need to be checked.
+     *
+     * @param c the character to classify.
+     * @return the class bits of the character.
+     */
+    private static int classifyNonAscii(char c) {
+        int bits = 0;
+        if (Character.isWhitespace(c)) bits |= WHITESPACE;
+        if (Character.isDigit(c)) bits |= DIGIT;
+        if (Character.isLetter(c)) bits |= LETTER;
+        return bits;
+    }
+}
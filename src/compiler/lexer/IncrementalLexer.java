@@ -0,0 +1,147 @@
+package compiler.lexer;
+
+import compiler.errors.LexicalException;
+import compiler.lexer.tokens.Token;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Updates the tokens of a source file after a text edit by lexing only the part of the source the edit damaged.
+ *
+ * The lexer keeps no state between tokens, and it only looks one character past the end of a token, so a
+ * token depends only on its own text and the character after it. Tokens that end before the edit are kept as
+ * they are, and lexing restarts just after the last of them. Once the new tokens are past the inserted text,
+ * lexing stops at the first token that starts where a token after the edit started in the old source. From
+ * there on the text is the same, so the tokens are too, and the rest of the old tokens are copied with their
+ * offsets and lines shifted by the size of the edit.
+ *
+ * This way the amount of lexing done is proportional to the size of the edit, not the size of the file. The
+ * result is the same as lexing the edited source from the start, except that identifiers first seen in the
+ * edit get the next free ids of the name table. ParallelLexer.matchesSequential() can be used to check it.
+ */
+public class IncrementalLexer {
+
+    /**
+     * Replace part of the source of the given tokens with new text, and update the tokens to match.
+     *
+     * The old buffer is not changed, so the result must be a different buffer. It is filled with the edited
+     * source and the same name table as the old buffer.
+     *
+     * @param tokens the tokens of the source before the edit.
+     * @param offset the offset in the old source where the edit starts.
+     * @param removedLength the number of characters of the old source the edit removes.
+     * @param insertedText the text the edit inserts at the offset.
+     * @param result the buffer to fill with the tokens of the edited source.
+     * @return the filled result buffer.
+     */
+    public static TokenBuffer relex(TokenBuffer tokens, int offset, int removedLength, String insertedText,
+                                    TokenBuffer result) {
+        ByteBuffer oldSource = tokens.getSource();
+        Objects.checkFromIndexSize(offset, removedLength, oldSource.limit());
+        byte[] inserted = insertedText.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer source = applyEdit(oldSource, offset, removedLength, inserted);
+        int offsetDelta = inserted.length - removedLength;
+        int lineDelta = countNewlines(source, offset, offset + inserted.length) -
+                countNewlines(oldSource, offset, offset + removedLength);
+
+        // Keep every token that ends before the edit, since neither it nor the character after it changed.
+        int damaged = findFirstDamagedToken(tokens, offset);
+        int restart = 0;
+        int lineBase = 0;
+        if (damaged > 0) {
+            restart = tokens.getStart(damaged - 1) + tokens.getLength(damaged - 1);
+            // The line of a token counts the character after it, which is where lexing restarts.
+            lineBase = tokens.getLine(damaged - 1) - (oldSource.get(restart) == '\n' ? 1 : 0);
+        }
+        result.reset(tokens.getFilename(), source, tokens.getNameTable());
+        result.addRange(tokens, 0, damaged, 0, 0);
+
+        Lexer lexer = new Lexer(tokens.getFilename(), source.slice(restart, source.limit() - restart),
+                tokens.getNameTable());
+        int insertedEnd = offset + inserted.length;
+        int oldIndex = damaged;
+        try {
+            Token token;
+            do {
+                token = lexer.getNextToken();
+                int start = lexer.getTokenStart() + restart;
+
+                // Past the edit, a token that starts where an old token started means the damage is over.
+                if (start >= insertedEnd) {
+                    while (oldIndex < tokens.size() && tokens.getStart(oldIndex) + offsetDelta < start)
+                        oldIndex++;
+                    if (oldIndex < tokens.size() && tokens.getStart(oldIndex) + offsetDelta == start) {
+                        result.addRange(tokens, oldIndex, tokens.size(), offsetDelta, lineDelta);
+                        result.setLexicalError(tokens.getLexicalError());
+                        return result;
+                    }
+                }
+                result.add(token, start, lexer.getTokenEnd() - lexer.getTokenStart(),
+                        lexer.getCurrentLine() + lineBase);
+            } while (token.tag != Tag.EOF);
+        } catch (LexicalException e) {
+            result.setLexicalError(e);
+        }
+        return result;
+    }
+
+    /**
+     * Create a copy of the source with the edit applied.
+     *
+     * @param source the source before the edit.
+     * @param offset the offset where the edit starts.
+     * @param removedLength the number of characters the edit removes.
+     * @param inserted the characters the edit inserts.
+     * @return the source after the edit.
+     */
+    private static ByteBuffer applyEdit(ByteBuffer source, int offset, int removedLength, byte[] inserted) {
+        int tailStart = offset + removedLength;
+        int tailLength = source.limit() - tailStart;
+        byte[] edited = new byte[offset + inserted.length + tailLength];
+        source.get(0, edited, 0, offset);
+        System.arraycopy(inserted, 0, edited, offset, inserted.length);
+        source.get(tailStart, edited, offset + inserted.length, tailLength);
+        return ByteBuffer.wrap(edited);
+    }
+
+    /**
+     * Find the first token that ends at or after the given offset, using a binary search.
+     *
+     * Tokens are in order and do not overlap, so their end offsets are in increasing order.
+     *
+     * @param tokens the tokens to search.
+     * @param offset the offset where the edit starts.
+     * @return the index of the first token the edit may change, or the number of tokens if there is none.
+     */
+    private static int findFirstDamagedToken(TokenBuffer tokens, int offset) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.getStart(middle) + tokens.getLength(middle) < offset)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Count the newline characters in a range of the source.
+     *
+     * @param source the source to count in.
+     * @param start the offset of the first character.
+     * @param end the offset one past the last character.
+     * @return the number of newline characters in the range.
+     */
+    private static int countNewlines(ByteBuffer source, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (source.get(i) == '\n')
+                count++;
+        }
+        return count;
+    }
+}
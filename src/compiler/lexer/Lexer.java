@@ -8,10 +8,12 @@ import compiler.lexer.tokens.Real;
 import compiler.lexer.tokens.Token;
 import compiler.lexer.tokens.Word;
 
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Lexical analysis for the compiler.
@@ -19,14 +21,29 @@ import java.util.Set;
  * This class provides the lexer for the compiler which reads the input file one character at a time and
  * converts lexemes into tokens. This class is used by the parser as a way of getting each additional token
  * for the parser to handle.
+ *
+ * The source file is memory mapped as a whole and scanned by index, rather than being pulled through a
+ * stream one byte per call, so lexing large files is bounded by memory bandwidth instead of per-call overhead.
+ *
+ * Tokens can also be lexed all at once into a packed TokenBuffer with tokenize(), which the parser can then
+ * read through a TokenCursor instead of from the lexer.
  */
-public class Lexer {
+public class Lexer implements TokenStream {
     private static final char EOF = '\0';
-    private final LexerState state = new LexerState();
+    // Largest integer below which every integer is exactly representable as a float. (2^24)
+    private static final int MAX_EXACT_FLOAT_INTEGER = 1 << 24;
+    // Powers of ten which are exactly representable as a float.
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    private final LexerState state;
     private final String filename;
-    private final BufferedInputStream bin;
-    private final Set<String> OPERATOR_LEXEMES = Set.of("<", ">", "=", "!", "&", "|", "+", "-", "*", "/");
-    private final Set<String> PUNCTUATION_LEXEMES = Set.of(";", "(", ")", "{", "}", "[", "]");
+    private final ByteBuffer source; // The entire source file, read by index.
+    private int offset = 0; // Index of the next character to read from the source.
+    private int characterOffset = 0; // Index of nextCharacter in the source.
+    private int tokenStart = 0; // Index of the first character of the most recent token in the source.
+    private int tokenIndex = -1; // Index of the most recent token, counted from the first token of the source.
+    private final NameTable names; // Canonical words for the identifiers of the compilation.
     public Boolean missingSemicolon = false;
     private char nextCharacter = ' ';
 
@@ -38,15 +55,59 @@ public class Lexer {
     }
 
     /**
-     * Create a new lexer for the given file and initialize the input stream.
+     * Create a new lexer for the given file and map the file into memory.
      *
      * @param filename the name of the file to read from.
      * @throws CompilerException if there is an error opening the file.
      */
     public Lexer(String filename) {
+        this(filename, mapFile(filename));
+    }
+
+    /**
+     * Create a new lexer over source code that is already in memory.
+     *
+     * The filename is only used for error messages. Characters are read from the buffer by absolute index,
+     * so the buffer's position is never modified.
+     *
+     * @param filename the name of the file the source came from.
+     * @param source the source code of the file.
+     */
+    public Lexer(String filename, ByteBuffer source) {
+        this(filename, source, new NameTable());
+    }
+
+    /**
+     * Create a new lexer over source code that is already in memory, interning identifiers into the given
+     * name table.
+     *
+     * Lexers which share a name table give the same Word token and name id to the same identifier.
+     *
+     * @param filename the name of the file the source came from.
+     * @param source the source code of the file.
+     * @param names the table to intern identifiers into.
+     */
+    public Lexer(String filename, ByteBuffer source, NameTable names) {
         this.filename = filename;
-        try {
-            bin = new BufferedInputStream(new FileInputStream(filename));
+        this.source = source;
+        this.names = names;
+        this.state = new LexerState(source);
+    }
+
+    /**
+     * Map the entire contents of the given file into memory as a read-only buffer.
+     *
+     * The mapping remains valid after the channel is closed, so no file handle is held open while lexing.
+     *
+     * @param filename the name of the file to map.
+     * @return a buffer containing the contents of the file.
+     * @throws CompilerException if the file cannot be opened or is too large to map.
+     */
+    public static ByteBuffer mapFile(String filename) {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new CompilerException("File too large: " + filename);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
         } catch (IOException e) {
             throw new CompilerException("Error opening file: " + filename);
         }
@@ -60,8 +121,11 @@ public class Lexer {
      *
      * @return the next token in the input stream.
      */
+    @Override
     public Token getNextToken() {
+        tokenIndex++;
         ignoreWhitespace();
+        tokenStart = characterOffset;
 
         TokenCategory tokenCategory = getTokenCategory();
 
@@ -74,11 +138,53 @@ public class Lexer {
         };
     }
 
+    /**
+     * Lex every remaining token of the source into the given buffer.
+     *
+     * The buffer is cleared first, and the tokens up to and including the EOF token are added to it. If a
+     * lexical error is found, the tokens before it are kept and the error is stored in the buffer, so that
+     * it is thrown when the parser reaches it rather than before parsing starts.
+     *
+     * @param buffer the buffer to fill, which may be reused from an earlier compilation.
+     * @return the filled buffer.
+     */
+    public TokenBuffer tokenize(TokenBuffer buffer) {
+        buffer.reset(filename, source, names);
+        try {
+            Token token;
+            do {
+                token = getNextToken();
+                buffer.add(token, tokenStart, characterOffset - tokenStart, state.getLine());
+            } while (token.tag != Tag.EOF);
+        } catch (LexicalException e) {
+            buffer.setLexicalError(e);
+        }
+        return buffer;
+    }
+
+    /**
+     * Get the index in the source of the first character of the most recent token.
+     *
+     * @return the start offset of the most recent token.
+     */
+    int getTokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Get the index in the source one past the last character of the most recent token.
+     *
+     * @return the end offset of the most recent token.
+     */
+    int getTokenEnd() {
+        return characterOffset;
+    }
+
     /**
      * Skip whitespace characters in the input stream.
      */
     private void ignoreWhitespace() {
-        while (Character.isWhitespace(nextCharacter))
+        while (CharacterClass.is(nextCharacter, CharacterClass.WHITESPACE))
             getNextCharacter();
         // Make sure the white space is not counted as part of token length.
         state.resetTokenLength();
@@ -92,19 +198,22 @@ public class Lexer {
      * a punctuation, it'll be a punctuation.
      * token.
      *
+     * The character is only classified once, through the character class table.
+     *
      * @return the category of the next token.
      * @throws LexicalException if the next character is not a valid token.
      */
     private TokenCategory getTokenCategory() {
         if (nextCharacter == EOF)
             return TokenCategory.EOF;
-        if (Character.isDigit(nextCharacter))
+        int characterClass = CharacterClass.of(nextCharacter);
+        if ((characterClass & CharacterClass.DIGIT) != 0)
             return TokenCategory.NUMBER;
-        if (Character.isLetter(nextCharacter))
+        if ((characterClass & CharacterClass.LETTER) != 0)
             return TokenCategory.WORD;
-        if (isOperator(nextCharacter))
+        if ((characterClass & CharacterClass.OPERATOR) != 0)
             return TokenCategory.OPERATOR;
-        if (isPunctuation(nextCharacter))
+        if ((characterClass & CharacterClass.PUNCTUATION) != 0)
             return TokenCategory.PUNCTUATION;
 
         state.incrementTokenLength();
@@ -114,26 +223,26 @@ public class Lexer {
     /**
      * Check if the character is an operator.
      *
-     * This will check if the character is in the set of operator lexemes defined within the language.
+     * This will check if the character is one of the operator characters defined within the language.
      *
      * @param character the character to check.
      * @return true if the character is an operator, false otherwise.
      */
     boolean isOperator(char character) {
-        return OPERATOR_LEXEMES.contains("" + character);
+        return CharacterClass.is(character, CharacterClass.OPERATOR);
     }
 
     /**
      * Check if the character is a punctuation.
      *
-     * This will check if the character is in the set of punctuation lexemes defined within the language. This
+     * This will check if the character is one of the punctuation characters defined within the language. This
      * includes ;, (, ), {, }, [, and ].
      *
      * @param character the character to check.
      * @return true if the character is a punctuation, false otherwise.
      */
     private boolean isPunctuation(char character) {
-        return PUNCTUATION_LEXEMES.contains("" + character);
+        return CharacterClass.is(character, CharacterClass.PUNCTUATION);
     }
 
     /**
@@ -142,26 +251,25 @@ public class Lexer {
      * @return the next number token in the input stream.
      */
     private Token readNumber() {
-        StringBuilder digits = new StringBuilder();
-        boolean hasDecimal = parseNumber(digits);
+        int start = characterOffset;
+        boolean hasDecimal = parseNumber();
         validateNumber();
 
-        return createNumberToken(hasDecimal, digits);
+        return createNumberToken(hasDecimal, start, characterOffset - start);
     }
 
     /**
-     * Parse the next number and update the digits StringBuilder with the number and return true if it contained
-     * a decimal point.
+     * Move past the next number and return true if it contained a decimal point.
+     *
+     * The digits are left in the source buffer, where they are converted to a value afterwards.
      *
-     * @param digits the StringBuilder to store the digits of the number.
      * @return true if the number contained a decimal point, false otherwise.
      */
-    private boolean parseNumber(StringBuilder digits) {
+    private boolean parseNumber() {
         // Seeing a decimal point will signal it is a real number.
         boolean hasSeenDecimal = false;
-        while (Character.isDigit(nextCharacter) || (nextCharacter == '.' && !hasSeenDecimal)) {
+        while (CharacterClass.is(nextCharacter, CharacterClass.DIGIT) || (nextCharacter == '.' && !hasSeenDecimal)) {
             if (nextCharacter == '.') hasSeenDecimal = true;
-            digits.append(nextCharacter);
             getNextCharacter();
         }
         return hasSeenDecimal;
@@ -171,6 +279,7 @@ public class Lexer {
      * Get the next character in the input stream and store it in the nextCharacter field.
      */
     private void getNextCharacter() {
+        characterOffset = offset;
         nextCharacter = readNextCharacter();
         // Always update the state with the new character that was read.
         state.advanceCharacter(nextCharacter);
@@ -179,20 +288,13 @@ public class Lexer {
     /**
      * Read the next character in the input stream.
      *
-     * @return the next character in the input stream.
-     * @throws CompilerException if there is an error reading the file.
+     * @return the next character in the input stream, or EOF once the end of the source is reached.
      */
     private char readNextCharacter() {
-        try {
-            int nextCharacterValue = bin.read();
-            // Store the EOF character as the EOF constant because its value -1 cannot be cast to a char.
-            if (nextCharacterValue == -1)
-                return EOF;
-            else
-                return (char) nextCharacterValue;
-        } catch (IOException e) {
-            throw new CompilerException("Error reading file: " + filename);
-        }
+        if (offset >= source.limit())
+            return EOF;
+        // Mask the byte so characters above 127 are not sign extended.
+        return (char) (source.get(offset++) & 0xFF);
     }
 
     /**
@@ -219,48 +321,120 @@ public class Lexer {
      * @return true if the character is a valid character to end a number, false otherwise.
      */
     boolean isValidEndOfNumber(char character) {
-        return isOperator(character) || character == ';' || character == ')' || character == '}' ||
-                character == ']' || character == ' ' || character == '\n' || character == '\t' ||
-                character == '\r';
+        return CharacterClass.is(character, CharacterClass.NUMBER_END);
     }
 
     /**
-     * Creates a number token with the given digits where the number is real if hasDecimal is true, and an integer
-     * otherwise.
+     * Creates a number token from the digits in the source buffer where the number is real if hasDecimal is
+     * true, and an integer otherwise.
      *
      * @param hasDecimal Did the number contain a decimal point, signaling it is real.
-     * @param digits The digits of the number as a string.
+     * @param start The index of the first digit of the number.
+     * @param length The number of characters in the number, including the decimal point.
      * @return the number token.
      */
-    private static Token createNumberToken(boolean hasDecimal, StringBuilder digits) {
+    private Token createNumberToken(boolean hasDecimal, int start, int length) {
         if (hasDecimal)
-            return new Real(Float.parseFloat(digits.toString()));
+            return new Real(parseReal(start, length));
         else
-            return new Num(Integer.parseInt(digits.toString()));
+            return Num.valueOf(parseInteger(start, length));
+    }
+
+    /**
+     * Convert the digits in the source buffer to an integer value.
+     *
+     * @param start The index of the first digit.
+     * @param length The number of digits.
+     * @return the integer value of the digits.
+     * @throws LexicalException if the value does not fit in an int.
+     */
+    private int parseInteger(int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = source.get(i) - '0';
+            // Check before multiplying so the value can never wrap around.
+            if (value > (Integer.MAX_VALUE - digit) / 10)
+                throw new LexicalException("integer literal too large");
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Convert the digits and decimal point in the source buffer to a floating point value.
+     *
+     * The digits are read as one integer, ignoring the decimal point, which is then divided by the power
+     * of ten given by the number of digits after the decimal point. When the integer is at most 2^24 and the
+     * power is at most 10^10, both are exact floats and the single division is correctly rounded, giving the
+     * same result as Float.parseFloat. Any other number falls back to Float.parseFloat.
+     *
+     * Example:
+     *  "12.75" is read as 1275 / 10^2 = 12.75
+     *
+     * @param start The index of the first character of the number.
+     * @param length The number of characters in the number, including the decimal point.
+     * @return the floating point value of the number.
+     */
+    private float parseReal(int start, int length) {
+        int digits = 0;
+        int fractionDigits = -1; // Becomes 0 once the decimal point is seen.
+        for (int i = start; i < start + length; i++) {
+            byte character = source.get(i);
+            if (character == '.') {
+                fractionDigits = 0;
+                continue;
+            }
+            if (fractionDigits >= 0)
+                fractionDigits++;
+            digits = digits * 10 + (character - '0');
+            if (digits > MAX_EXACT_FLOAT_INTEGER)
+                return Float.parseFloat(getLexeme(start, length));
+        }
+        if (fractionDigits >= FLOAT_POWERS_OF_TEN.length)
+            return Float.parseFloat(getLexeme(start, length));
+        return digits / FLOAT_POWERS_OF_TEN[fractionDigits];
     }
 
     /**
      * Read a word from the input stream which may be an identifier or a reserved word.
      *
+     * The word is located in the source buffer and checked against the reserved words in place. Identifiers
+     * are interned, so a string and Word are only created the first time an identifier is seen.
+     *
      * @return the next word token in the input stream.
      */
     private Token readWord() {
         // Read words as identifiers or reserved words
-        StringBuilder stringBuilder = new StringBuilder();
+        int start = characterOffset;
         do {
-            stringBuilder.append(nextCharacter);
             getNextCharacter();
-        } while (Character.isLetterOrDigit(nextCharacter));
+        } while (CharacterClass.is(nextCharacter, CharacterClass.LETTER | CharacterClass.DIGIT));
+        int length = characterOffset - start;
 
-        String wordString = stringBuilder.toString();
-        Word word = ReservedWords.get(wordString);
+        Word word = ReservedWords.getKeyword(source, start, length);
 
         // If it is a reserved word, return it
         if (word != null)
             return word;
 
         // Must be an identifier
-        return new Word(wordString, Tag.ID);
+        return names.intern(source, start, length);
+    }
+
+    /**
+     * Create a string from the characters in the source buffer at the given range.
+     *
+     * Each byte is one character, the same as when characters are read one at a time. This is only needed
+     * for the rare real literals which cannot be converted exactly by parseReal.
+     *
+     * @param start the index of the first character.
+     * @param length the number of characters.
+     * @return the characters as a string.
+     */
+    private String getLexeme(int start, int length) {
+        byte[] bytes = new byte[length];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
     }
 
     /**
@@ -274,13 +448,13 @@ public class Lexer {
      * @throws LexicalException if the operator is not a valid reserved operator.
      */
     private Token readOperator() {
-        // Get the current and next characters and combine them as operator.
-        String operator = "" + nextCharacter;
+        // Get the current and next characters as a possible two character operator.
+        char first = nextCharacter;
         getNextCharacter();
-        operator += nextCharacter;
+        char second = nextCharacter;
 
         // Check if the operator is a valid operator.
-        Word operatorToken = ReservedWords.getOperator(operator);
+        Word operatorToken = ReservedWords.getOperator(first, second);
         if (operatorToken != null) {
             // If the found operator is two characters long, then move to the next character, because the current
             // one will be used for this operator.
@@ -288,7 +462,7 @@ public class Lexer {
                 getNextCharacter();
             return operatorToken;
         }
-        throw new LexicalException("Unexpected token: " + operator);
+        throw new LexicalException("Unexpected token: " + first + second);
     }
 
     /**
@@ -297,7 +471,7 @@ public class Lexer {
      * @return the next punctuation token in the input stream.
      */
     private Token readPunctuation() {
-        Token punctuationToken = ReservedWords.get("" + nextCharacter);
+        Token punctuationToken = ReservedWords.getPunctuation(nextCharacter);
         getNextCharacter();
         return punctuationToken;
     }
@@ -306,8 +480,12 @@ public class Lexer {
      * Get the error context for the current error that will provide information about the error location and
      * source code snippet.
      *
+     * This does not move the lexer, so lexing can carry on after the error. The text of the line is read
+     * from the source when the error is printed, so it does not need to have been lexed to its end.
+     *
      * @return the error context for the current error.
      */
+    @Override
     public ErrorContext getErrorContext() {
         int errorLength = state.getTokenLength();
         int errorPosition = state.getPosition() - 1 - errorLength;
@@ -321,15 +499,15 @@ public class Lexer {
         if (missingSemicolon && shouldBePreviousLine()) {
             line -= 1;
             errorPosition = state.getLines().get(line).length() - 2;
+        } else if (nextCharacter == '\n') {
+            // The token ended its line, and the newline after it has already been read, so the lexer has moved
+            // on to the next line. Point at the token at the end of the line it was on instead.
+            line -= 1;
+            errorLength = characterOffset - tokenStart;
+            errorPosition = state.getLines().get(line).length() - 1 - errorLength;
         }
-
-        while (nextCharacter != '\n') {
-            if (nextCharacter == EOF) {
-                state.endLine();
-                break;
-            }
-            getNextCharacter();
-        }
+        // The missing semicolon only applies to this error.
+        missingSemicolon = false;
 
         return new ErrorContext(filename, line, errorPosition, errorLength, state.getLines());
     }
@@ -352,18 +530,36 @@ public class Lexer {
      *
      * @return the current line number.
      */
+    @Override
     public int getCurrentLine() {
         return state.getLine();
     }
 
     /**
-     * Return a string representation of the given tag.
+     * Get the index of the most recently returned token.
+     *
+     * @return the index of the most recently returned token.
+     */
+    @Override
+    public int getTokenIndex() {
+        return tokenIndex;
+    }
+
+    /**
+     * Signal that the current error is a missing semicolon.
+     */
+    @Override
+    public void markMissingSemicolon() {
+        missingSemicolon = true;
+    }
+
+    /**
+     * Get the table of identifiers interned by this lexer.
      *
-     * @param tag The tag to convert to a string.
-     * @return The string representation of the tag.
+     * @return the name table of this lexer.
      */
-    public String convertTagToString(int tag) {
-        return ReservedWords.get(tag);
+    public NameTable getNameTable() {
+        return names;
     }
 
 }
@@ -1,6 +1,6 @@
 package compiler.lexer;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -14,14 +14,26 @@ import java.util.List;
  *
  * This information is used by the lexer when it needs to generate error context information during
  * exception handling.
+ *
+ * Lines are not copied as they are read. Only the offset where each line starts is recorded, and the text
+ * of a line is read back from the source when an error message needs it.
  */
 public class LexerState {
     private static final char EOF = '\0'; // End of file character
     private int line = 0; // Current line number
     private int position = 0; // Current position in the line
     private int tokenLength = 0; // Length of the current token being processed
-    private final StringBuilder currentLine = new StringBuilder(); // Current line being processed
-    private final List<String> lines = new ArrayList<>(); // List of all lines from the source code
+    private int offset = 0; // Offset in the source just after the last character processed
+    private final LineIndex lines; // Start offsets of all lines from the source code
+
+    /**
+     * Creates the state for a lexer reading the given source.
+     *
+     * @param source The source code being read, used to read back lines for error messages.
+     */
+    public LexerState(ByteBuffer source) {
+        lines = new LineIndex(source);
+    }
 
     /**
      * Advances the lexer state by one character.
@@ -31,13 +43,12 @@ public class LexerState {
     public void advanceCharacter(char c) {
         // Update information about the current line, if the character is not EOF.
         if (c != EOF)
-            currentLine.append(c);
+            offset++;
         position++;
         tokenLength++;
-        // If it is a newline character, save it as the previousLine and reset the currentLine.
+        // If it is a newline character, record where the next line starts.
         if (c == '\n') {
-            lines.add(currentLine.toString());
-            currentLine.setLength(0);
+            lines.endLine(offset);
             line++;
             position = 0;
             tokenLength = 0;
@@ -59,13 +70,6 @@ public class LexerState {
         tokenLength = 0;
     }
 
-    /**
-     * Appends a newline character to the current line.
-     */
-    public void endLine() {
-        currentLine.append('\n');
-    }
-
     /**
      * Gets the current line number.
      *
@@ -99,7 +103,7 @@ public class LexerState {
      * @return the current line being processed.
      */
     public String getCurrentLine() {
-        return currentLine.toString();
+        return lines.getText(lines.getLineStart(line), offset);
     }
 
     /**
@@ -0,0 +1,104 @@
+package compiler.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * The completed lines of the source code, recorded only as the offsets where each line starts.
+ *
+ * Lines are used for error messages, which are rare, so instead of copying every line as it is read,
+ * only the start offset of each line is stored. When a line is requested, its text is decoded from the
+ * source buffer. Each line includes its trailing newline character, the same as the text that was read.
+ *
+ * This is a read-only list view, so it can be passed anywhere the lines are needed as a List.
+ */
+public class LineIndex extends AbstractList<String> {
+    private final ByteBuffer source;
+    // Offset in the source where each line starts. Line i spans from lineStarts[i] to lineStarts[i + 1].
+    private int[] lineStarts = new int[256];
+    private int completedLines = 0;
+
+    /**
+     * Create an index for the lines of the given source, starting with the first line at offset 0.
+     *
+     * @param source the source code the lines are read from.
+     */
+    public LineIndex(ByteBuffer source) {
+        this.source = source;
+        lineStarts[0] = 0;
+    }
+
+    /**
+     * Record that the current line ended, and that the next line starts at the given offset.
+     *
+     * @param nextLineStart the offset in the source just after the newline character.
+     */
+    public void endLine(int nextLineStart) {
+        completedLines++;
+        if (completedLines == lineStarts.length)
+            lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+        lineStarts[completedLines] = nextLineStart;
+    }
+
+    /**
+     * Get the offset in the source where the given line starts.
+     *
+     * @param line the line number, which may be the current incomplete line.
+     * @return the offset of the first character of the line.
+     */
+    public int getLineStart(int line) {
+        return lineStarts[line];
+    }
+
+    /**
+     * Get the text of the source between two offsets.
+     *
+     * Each byte is one character, the same as when the lexer reads characters one at a time.
+     *
+     * @param start the offset of the first character.
+     * @param end the offset one past the last character.
+     * @return the text between the offsets.
+     */
+    public String getText(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Get the text of a line, including its newline character.
+     *
+     * The line may also be the current line, which has not been read to its end yet. Its text is read from
+     * the source up to the next newline, and a newline is added if it is the last line of the source and
+     * does not end with one.
+     *
+     * @param line the line number.
+     * @return the text of the line.
+     */
+    @Override
+    public String get(int line) {
+        if (line < 0 || line > completedLines)
+            throw new IndexOutOfBoundsException("Index " + line + " out of bounds for length " + completedLines);
+        if (line < completedLines)
+            return getText(lineStarts[line], lineStarts[line + 1]);
+
+        int end = lineStarts[line];
+        while (end < source.limit() && source.get(end) != '\n')
+            end++;
+        if (end < source.limit())
+            return getText(lineStarts[line], end + 1);
+        return getText(lineStarts[line], end) + '\n';
+    }
+
+    /**
+     * Get the number of completed lines.
+     *
+     * @return the number of completed lines.
+     */
+    @Override
+    public int size() {
+        return completedLines;
+    }
+}
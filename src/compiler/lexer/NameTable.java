@@ -0,0 +1,170 @@
+package compiler.lexer;
+
+import compiler.lexer.tokens.Word;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns identifiers so each distinct name has one canonical Word token and a dense integer id.
+ *
+ * The lexer looks identifiers up directly from their characters in the source buffer, so an
+ * identifier that has been seen before costs a hash and a comparison but no allocation, and every
+ * reference to the same name shares one Word. The ids start at 0 and count up in order of first
+ * appearance, which lets later phases key on ints instead of strings.
+ *
+ * One table is shared by everything lexed within a compilation. It is not thread safe.
+ *
+ * Example:
+ *  the source "x = y + x;" interns x with id 0 and y with id 1, and both x tokens are the same Word.
+ */
+public class NameTable {
+    // Open addressing hash table of name id + 1, where 0 marks an empty slot. Its size is a power of two.
+    private int[] slots = new int[64];
+    // Canonical word and hash of each name, indexed by name id.
+    private Word[] words = new Word[32];
+    private int[] hashes = new int[32];
+    private int size = 0;
+
+    /**
+     * Get the canonical identifier Word for the word stored in the source buffer at the given range,
+     * adding it to the table if it has not been seen before.
+     *
+     * @param source the buffer containing the source code.
+     * @param start the index of the first character of the word.
+     * @param length the number of characters in the word.
+     * @return the canonical Word token for the identifier.
+     */
+    public Word intern(ByteBuffer source, int start, int length) {
+        int hash = hash(source, start, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0)
+                return add(slot, hash, createLexeme(source, start, length));
+            if (hashes[id] == hash && matches(words[id].lexeme, source, start, length))
+                return words[id];
+        }
+    }
+
+    /**
+     * Get the canonical identifier Word for the given name, adding it to the table if it has not been
+     * seen before.
+     *
+     * @param name the identifier.
+     * @return the canonical Word token for the identifier.
+     */
+    public Word intern(String name) {
+        return intern(ByteBuffer.wrap(name.getBytes(StandardCharsets.ISO_8859_1)), 0, name.length());
+    }
+
+    /**
+     * Get the canonical Word of the identifier with the given id.
+     *
+     * @param nameId the dense id of the identifier.
+     * @return the canonical Word token for the identifier.
+     */
+    public Word get(int nameId) {
+        return words[nameId];
+    }
+
+    /**
+     * Get the number of distinct identifiers in the table, which is one more than the largest id.
+     *
+     * @return the number of identifiers.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a new identifier to the table in the given empty slot and give it the next id.
+     *
+     * @param slot the empty hash table slot found for the identifier.
+     * @param hash the hash of the identifier.
+     * @param lexeme the identifier.
+     * @return the new canonical Word token for the identifier.
+     */
+    private Word add(int slot, int hash, String lexeme) {
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        Word word = new Word(lexeme, Tag.ID, size);
+        words[size] = word;
+        hashes[size] = hash;
+        slots[slot] = size + 1;
+        size++;
+
+        // Keep the hash table at most half full so probe sequences stay short.
+        if (size * 2 > slots.length)
+            rehash();
+        return word;
+    }
+
+    /**
+     * Double the size of the hash table and reinsert every identifier.
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Hash the characters in the source buffer at the given range.
+     *
+     * The result is spread so the low bits, which select the slot, depend on every character.
+     *
+     * @param source the buffer containing the source code.
+     * @param start the index of the first character.
+     * @param length the number of characters.
+     * @return the hash of the characters.
+     */
+    private static int hash(ByteBuffer source, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++)
+            hash = 31 * hash + (source.get(i) & 0xFF);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Check if the characters in the source buffer at the given range are the same as the lexeme.
+     *
+     * @param lexeme the lexeme of an interned identifier.
+     * @param source the buffer containing the source code.
+     * @param start the index of the first character.
+     * @param length the number of characters.
+     * @return true if they are the same, false otherwise.
+     */
+    private static boolean matches(String lexeme, ByteBuffer source, int start, int length) {
+        if (lexeme.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (lexeme.charAt(i) != (source.get(start + i) & 0xFF))
+                return false;
+        return true;
+    }
+
+    /**
+     * Create a string from the characters in the source buffer at the given range.
+     *
+     * Each byte is one character, the same as when the lexer reads characters one at a time.
+     *
+     * @param source the buffer containing the source code.
+     * @param start the index of the first character.
+     * @param length the number of characters.
+     * @return the characters as a string.
+     */
+    private static String createLexeme(ByteBuffer source, int start, int length) {
+        byte[] bytes = new byte[length];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
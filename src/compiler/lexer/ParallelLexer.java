@@ -0,0 +1,149 @@
+package compiler.lexer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes very large source files by splitting them into chunks which are lexed in parallel.
+ *
+ * The language has no strings or comments, so a whitespace character can never be inside a token. The
+ * source is split just after whitespace characters, which means every chunk boundary falls between two
+ * tokens, and the last token of a chunk is followed by the same character it is followed by in the whole
+ * file. Each chunk is lexed on a ForkJoinPool into its own TokenBuffer with its own NameTable, and then the
+ * chunks are stitched together in order: offsets are shifted by the chunk's start, line numbers by the
+ * number of lines before the chunk, and identifiers are interned into the shared name table so they get
+ * the same ids they would get from lexing sequentially.
+ *
+ * The result is identical to Lexer.tokenize(). If a chunk finds a lexical error, the tokens before the
+ * error are kept and the error is stored in the buffer, the same as when lexing sequentially, and errors
+ * are reported through a TokenCursor, which lexes the source again to build the error context.
+ */
+public class ParallelLexer {
+    // Sources smaller than two chunks of this size are not worth splitting.
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+    // Chunks per thread, so threads that finish early can pick up more work.
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Lex every token of the source into the given buffer, splitting the work across the given pool.
+     *
+     * @param filename the name of the file the source came from.
+     * @param source the source code of the file.
+     * @param names the table to intern identifiers into.
+     * @param buffer the buffer to fill, which may be reused from an earlier compilation.
+     * @param pool the pool to lex the chunks on.
+     * @return the filled buffer.
+     */
+    public static TokenBuffer tokenize(String filename, ByteBuffer source, NameTable names, TokenBuffer buffer,
+                                       ForkJoinPool pool) {
+        int[] boundaries = findChunkBoundaries(source, pool.getParallelism() * CHUNKS_PER_THREAD);
+        if (boundaries.length <= 2)
+            return new Lexer(filename, source, names).tokenize(buffer);
+
+        // Lex each chunk on its own, with offsets, lines, and name ids local to the chunk.
+        List<ForkJoinTask<TokenBuffer>> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            ByteBuffer chunk = source.slice(boundaries[i], boundaries[i + 1] - boundaries[i]);
+            chunks.add(pool.submit(() -> new Lexer(filename, chunk, new NameTable()).tokenize(new TokenBuffer())));
+        }
+
+        buffer.reset(filename, source, names);
+        int lineBase = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            TokenBuffer chunk = chunks.get(i).join();
+            boolean isLastChunk = i == chunks.size() - 1;
+            appendChunk(buffer, chunk, boundaries[i], lineBase, isLastChunk);
+            if (chunk.getLexicalError() != null) {
+                buffer.setLexicalError(chunk.getLexicalError());
+                break;
+            }
+            // The EOF token of a chunk is read after every newline in the chunk, so its line is the line count.
+            lineBase += chunk.getLine(chunk.size() - 1);
+        }
+        return buffer;
+    }
+
+    /**
+     * Find the offsets to split the source at, so that each chunk starts just after a whitespace character.
+     *
+     * The first offset is 0 and the last is the end of the source. Whitespace is searched for forwards from
+     * evenly spaced offsets, so a long stretch without whitespace only makes its chunk larger.
+     *
+     * @param source the source code to split.
+     * @param maxChunks the greatest number of chunks to split the source into.
+     * @return the offsets of the chunk boundaries, in increasing order.
+     */
+    private static int[] findChunkBoundaries(ByteBuffer source, int maxChunks) {
+        int length = source.limit();
+        int chunkCount = Math.max(1, Math.min(maxChunks, length / MIN_CHUNK_SIZE));
+        int chunkSize = length / chunkCount;
+
+        int[] boundaries = new int[chunkCount + 1];
+        int count = 1;
+        for (int i = 1; i < chunkCount; i++) {
+            int boundary = Math.max(i * chunkSize, boundaries[count - 1] + 1);
+            while (boundary < length && !isWhitespace(source.get(boundary - 1)))
+                boundary++;
+            if (boundary >= length)
+                break;
+            boundaries[count++] = boundary;
+        }
+        boundaries[count++] = length;
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * Check if a byte of the source is a whitespace character.
+     *
+     * @param character the byte to check.
+     * @return true if the byte is whitespace, false otherwise.
+     */
+    private static boolean isWhitespace(byte character) {
+        return CharacterClass.is((char) (character & 0xFF), CharacterClass.WHITESPACE);
+    }
+
+    /**
+     * Append the tokens of a chunk to the buffer, converting them to positions in the whole source.
+     *
+     * The EOF token of every chunk except the last is dropped, since the source continues in the next chunk.
+     *
+     * @param buffer the buffer for the whole source.
+     * @param chunk the tokens of the chunk.
+     * @param offsetBase the offset of the chunk in the whole source.
+     * @param lineBase the number of lines before the chunk.
+     * @param isLastChunk true if this is the final chunk of the source.
+     */
+    private static void appendChunk(TokenBuffer buffer, TokenBuffer chunk, int offsetBase, int lineBase,
+                                    boolean isLastChunk) {
+        // Map the name ids of the chunk to ids in the shared table, in order of first appearance.
+        NameTable chunkNames = chunk.getNameTable();
+        int[] nameIds = new int[chunkNames.size()];
+        for (int id = 0; id < nameIds.length; id++)
+            nameIds[id] = buffer.getNameTable().intern(chunkNames.get(id).lexeme).nameId;
+
+        for (int i = 0; i < chunk.size(); i++) {
+            int tag = chunk.getTag(i);
+            if (tag == Tag.EOF && !isLastChunk)
+                break;
+            int payload = tag == Tag.ID ? nameIds[chunk.getPayload(i)] : chunk.getPayload(i);
+            buffer.add(tag, chunk.getStart(i) + offsetBase, chunk.getLength(i), chunk.getLine(i) + lineBase, payload);
+        }
+    }
+
+    /**
+     * Check that the tokens lexed in parallel are the same as the tokens lexed sequentially.
+     *
+     * This lexes the source again on one thread, so it is meant for assertions and debugging.
+     *
+     * @param buffer tokens lexed in parallel by tokenize().
+     * @return true if lexing the same source sequentially gives the same tokens.
+     */
+    public static boolean matchesSequential(TokenBuffer buffer) {
+        TokenBuffer sequential = new Lexer(buffer.getFilename(), buffer.getSource()).tokenize(new TokenBuffer());
+        return buffer.hasSameTokens(sequential);
+    }
+}
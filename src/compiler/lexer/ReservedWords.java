@@ -3,8 +3,9 @@ package compiler.lexer;
 import compiler.lexer.tokens.Type;
 import compiler.lexer.tokens.Word;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Stores the reserved words of the language.
@@ -12,49 +13,82 @@ import java.util.List;
  * This class provides a static list of keywords that are reserved in the language such
  * as true, false, if, else, while etc. It provides a way to look up the token Word by its
  * string lexeme, or to get the string lexeme from its tag.
+ *
+ * Lookups used by the lexer never allocate: keywords are found by switching on the length and
+ * first character of the word directly in the source buffer, operators and punctuation by switching
+ * on their characters, and lexemes are found from a tag through an array indexed by the tag.
  */
 public class ReservedWords {
-    private static final List<Word> keywords = new ArrayList<>();
+    public static final Word
+        TRUE = new Word("true", Tag.TRUE), FALSE = new Word("false", Tag.FALSE),
+        IF = new Word("if", Tag.IF), ELSE = new Word("else", Tag.ELSE), WHILE = new Word("while", Tag.WHILE),
+        DO = new Word("do", Tag.DO), BREAK = new Word("break", Tag.BREAK),
+        EQ = new Word("==", Tag.EQ), NE = new Word("!=", Tag.NE), LT = new Word("<", Tag.LT),
+        LE = new Word("<=", Tag.LE), GT = new Word(">", Tag.GT), GE = new Word(">=", Tag.GE),
+        AND = new Word("&&", Tag.AND), OR = new Word("||", Tag.OR), ADD = new Word("+", Tag.ADD),
+        SUB = new Word("-", Tag.SUB), MUL = new Word("*", Tag.MUL), DIV = new Word("/", Tag.DIV),
+        ASSIGN = new Word("=", Tag.ASSIGN), NOT = new Word("!", Tag.NOT),
+        LBRACKET = new Word("[", Tag.LBRACKET), RBRACKET = new Word("]", Tag.RBRACKET),
+        SEMICOLON = new Word(";", Tag.SEMICOLON), LPAREN = new Word("(", Tag.LPAREN),
+        RPAREN = new Word(")", Tag.RPAREN), LBRACE = new Word("{", Tag.LBRACE), RBRACE = new Word("}", Tag.RBRACE),
+        EOF = new Word("EOF", Tag.EOF);
+
+    private static final Map<String, Word> keywords = new HashMap<>();
+    // The first reserved word registered for each tag, indexed by tag - Tag.NUM.
+    private static final Word[] wordsByTag = new Word[Tag.EOF - Tag.NUM + 1];
 
     static {
-        keywords.add(new Word("true", Tag.TRUE));
-        keywords.add(new Word("false", Tag.FALSE));
-
-        keywords.add(Type.Int);
-        keywords.add(Type.Float);
-        keywords.add(Type.Char);
-        keywords.add(Type.Bool);
-
-        keywords.add(new Word("if", Tag.IF));
-        keywords.add(new Word("else", Tag.ELSE));
-        keywords.add(new Word("while", Tag.WHILE));
-        keywords.add(new Word("do", Tag.DO));
-        keywords.add(new Word("break", Tag.BREAK));
-        keywords.add(new Word("==", Tag.EQ));
-        keywords.add(new Word("!=", Tag.NE));
-        keywords.add(new Word("<", Tag.LT));
-        keywords.add(new Word("<=", Tag.LE));
-        keywords.add(new Word(">", Tag.GT));
-        keywords.add(new Word(">=", Tag.GE));
-        keywords.add(new Word("&&", Tag.AND));
-        keywords.add(new Word("||", Tag.OR));
-        keywords.add(new Word("+", Tag.ADD));
-        keywords.add(new Word("-", Tag.SUB));
-        keywords.add(new Word("*", Tag.MUL));
-        keywords.add(new Word("/", Tag.DIV));
-        keywords.add(new Word("=", Tag.ASSIGN));
-        keywords.add(new Word("!", Tag.NOT));
-
-        keywords.add(new Word("[", Tag.LBRACKET));
-        keywords.add(new Word("]", Tag.RBRACKET));
-
-        keywords.add(new Word(";", Tag.SEMICOLON));
-        keywords.add(new Word("(", Tag.LPAREN));
-        keywords.add(new Word(")", Tag.RPAREN));
-        keywords.add(new Word("{", Tag.LBRACE));
-        keywords.add(new Word("}", Tag.RBRACE));
-
-        keywords.add(new Word("EOF", Tag.EOF));
+        add(TRUE);
+        add(FALSE);
+
+        add(Type.Int);
+        add(Type.Float);
+        add(Type.Char);
+        add(Type.Bool);
+
+        add(IF);
+        add(ELSE);
+        add(WHILE);
+        add(DO);
+        add(BREAK);
+        add(EQ);
+        add(NE);
+        add(LT);
+        add(LE);
+        add(GT);
+        add(GE);
+        add(AND);
+        add(OR);
+        add(ADD);
+        add(SUB);
+        add(MUL);
+        add(DIV);
+        add(ASSIGN);
+        add(NOT);
+
+        add(LBRACKET);
+        add(RBRACKET);
+
+        add(SEMICOLON);
+        add(LPAREN);
+        add(RPAREN);
+        add(LBRACE);
+        add(RBRACE);
+
+        add(EOF);
+    }
+
+    /**
+     * Register a reserved word for lookup by lexeme and by tag.
+     *
+     * Only the first word registered for a tag is used for tag lookups, so Tag.BASIC maps to "int".
+     *
+     * @param word the reserved word to register.
+     */
+    private static void add(Word word) {
+        keywords.put(word.lexeme, word);
+        if (wordsByTag[word.tag - Tag.NUM] == null)
+            wordsByTag[word.tag - Tag.NUM] = word;
     }
 
     /**
@@ -70,17 +104,129 @@ public class ReservedWords {
      * @return the Word token for the lexeme, or null if it is not a reserved word.
      */
     public static Word get(String lexeme) {
-        for (Word keyword : keywords)
-            if (keyword.lexeme.equals(lexeme))
-                return keyword;
+        return keywords.get(lexeme);
+    }
+
+    /**
+     * Get the keyword Word token for the word stored in the source buffer at the given range.
+     *
+     * The candidate keyword is chosen by switching on the length and first character of the word, so at
+     * most one keyword is compared against the source and nothing is allocated. If the word is not a
+     * keyword, null is returned and the word must be an identifier.
+     *
+     * Example:
+     *  ReservedWords.getKeyword(source, start, 5) returns Word("while", Tag.WHILE) for "while"
+     *
+     * @param source the buffer containing the source code.
+     * @param start the index of the first character of the word.
+     * @param length the number of characters in the word.
+     * @return the keyword Word token, or null if the word is not a keyword.
+     */
+    public static Word getKeyword(ByteBuffer source, int start, int length) {
+        Word candidate = switch (length) {
+            case 2 -> switch (source.get(start)) {
+                case 'i' -> IF;
+                case 'd' -> DO;
+                default -> null;
+            };
+            case 3 -> source.get(start) == 'i' ? Type.Int : null;
+            case 4 -> switch (source.get(start)) {
+                case 't' -> TRUE;
+                case 'e' -> ELSE;
+                case 'c' -> Type.Char;
+                case 'b' -> Type.Bool;
+                default -> null;
+            };
+            case 5 -> switch (source.get(start)) {
+                case 'f' -> source.get(start + 1) == 'a' ? FALSE : Type.Float;
+                case 'w' -> WHILE;
+                case 'b' -> BREAK;
+                default -> null;
+            };
+            default -> null;
+        };
+        if (candidate != null && matches(source, start, candidate.lexeme))
+            return candidate;
         return null;
     }
 
-    public static Word getOperator(String operator) {
-        Word word = get(operator);
-        if (word != null)
-            return word;
-        return get(operator.substring(0, 1));
+    /**
+     * Check if the characters in the source buffer starting at the given index match the lexeme.
+     *
+     * @param source the buffer containing the source code.
+     * @param start the index of the first character to compare.
+     * @param lexeme the lexeme to compare against.
+     * @return true if the source matches the lexeme, false otherwise.
+     */
+    private static boolean matches(ByteBuffer source, int start, String lexeme) {
+        for (int i = 0; i < lexeme.length(); i++)
+            if (source.get(start + i) != lexeme.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Get the operator Word token beginning with the given two characters.
+     *
+     * If the two characters form a two character operator, then that operator is returned. Otherwise,
+     * the single character operator of the first character is returned, or null if there is none.
+     *
+     * Example:
+     *  ReservedWords.getOperator('<', '=') returns Word("<=", Tag.LE)
+     *  ReservedWords.getOperator('<', '5') returns Word("<", Tag.LT)
+     *
+     * @param first the first character of the operator.
+     * @param second the character following the first character.
+     * @return the operator Word token, or null if it is not a valid operator.
+     */
+    public static Word getOperator(char first, char second) {
+        return switch (first) {
+            case '=' -> second == '=' ? EQ : ASSIGN;
+            case '!' -> second == '=' ? NE : NOT;
+            case '<' -> second == '=' ? LE : LT;
+            case '>' -> second == '=' ? GE : GT;
+            case '&' -> second == '&' ? AND : null;
+            case '|' -> second == '|' ? OR : null;
+            case '+' -> ADD;
+            case '-' -> SUB;
+            case '*' -> MUL;
+            case '/' -> DIV;
+            default -> null;
+        };
+    }
+
+    /**
+     * Get the punctuation Word token for the given character.
+     *
+     * @param character the punctuation character.
+     * @return the punctuation Word token, or null if the character is not punctuation.
+     */
+    public static Word getPunctuation(char character) {
+        return switch (character) {
+            case ';' -> SEMICOLON;
+            case '(' -> LPAREN;
+            case ')' -> RPAREN;
+            case '{' -> LBRACE;
+            case '}' -> RBRACE;
+            case '[' -> LBRACKET;
+            case ']' -> RBRACKET;
+            default -> null;
+        };
+    }
+
+    /**
+     * Get the reserved Word token for the given tag.
+     *
+     * Example:
+     *  ReservedWords.getWord(Tag.WHILE) returns Word("while", Tag.WHILE)
+     *
+     * @param tag the tag to look up.
+     * @return the first reserved word registered for the tag, or null if there is none.
+     */
+    public static Word getWord(int tag) {
+        if (tag >= Tag.NUM && tag <= Tag.EOF)
+            return wordsByTag[tag - Tag.NUM];
+        return null;
     }
 
     /**
@@ -97,9 +243,9 @@ public class ReservedWords {
      * @return the lexeme for the tag, or the character representation of the tag.
      */
     public static String get(int tag) {
-        for (Word keyword : keywords)
-            if (keyword.tag == tag)
-                return keyword.lexeme;
+        Word word = getWord(tag);
+        if (word != null)
+            return word.lexeme;
         return (char) tag + "";
     }
 }
@@ -0,0 +1,322 @@
+package compiler.lexer;
+
+import compiler.errors.LexicalException;
+import compiler.lexer.tokens.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A compact, pre-lexed stream of tokens stored as parallel int arrays.
+ *
+ * Instead of one Token object per token, each token is stored as its tag, its start offset and length in
+ * the source, the line number the lexer was on after reading it, and a payload. The payload holds the value
+ * of integer literals, the float bits of real literals, the name id of identifiers, and the index of basic
+ * types. Tokens are turned back into objects on demand by toToken(), which returns shared tokens for
+ * everything except real literals and large integers.
+ *
+ * A buffer can be cleared and refilled, keeping its arrays, so a long-running process can reuse one buffer
+ * for each compilation. A TokenCursor is used to read the tokens from the parser.
+ *
+ * If the lexer found an error, the tokens before the error are stored, and the error is kept so it can be
+ * thrown when the parser reaches it, the same as when tokens are lexed one at a time.
+ */
+public class TokenBuffer {
+    // Basic types in the order of their payload index.
+    private static final Type[] BASIC_TYPES = {Type.Int, Type.Float, Type.Char, Type.Bool};
+    // The EOF token is shared because it carries no information besides its tag.
+    static final Token EOF_TOKEN = new Token(Tag.EOF);
+
+    private int[] tags = new int[1024];
+    private int[] starts = new int[1024];
+    private int[] lengths = new int[1024];
+    private int[] lines = new int[1024];
+    private int[] payloads = new int[1024];
+    private int size = 0;
+
+    // The source the tokens were lexed from, kept so errors can be reported from it.
+    private String filename;
+    private ByteBuffer source;
+    private NameTable names;
+    private LexicalException lexicalError;
+
+    /**
+     * Remove all tokens and prepare the buffer to be filled from the given source.
+     *
+     * The arrays are kept at their current capacity so they can be reused.
+     *
+     * @param filename the name of the file the source came from.
+     * @param source the source code of the file.
+     * @param names the table the identifiers of the source are interned in.
+     */
+    public void reset(String filename, ByteBuffer source, NameTable names) {
+        this.filename = filename;
+        this.source = source;
+        this.names = names;
+        this.lexicalError = null;
+        size = 0;
+    }
+
+    /**
+     * Append a token to the end of the buffer.
+     *
+     * @param token the token to append.
+     * @param start the index of the first character of the token in the source.
+     * @param length the number of characters in the token.
+     * @param line the line number the lexer was on after reading the token.
+     */
+    public void add(Token token, int start, int length, int line) {
+        if (size == tags.length)
+            grow();
+        tags[size] = token.tag;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        payloads[size] = getPayload(token);
+        size++;
+    }
+
+    /**
+     * Append a token that is already in packed form to the end of the buffer.
+     *
+     * @param tag the tag of the token.
+     * @param start the index of the first character of the token in the source.
+     * @param length the number of characters in the token.
+     * @param line the line number the lexer was on after reading the token.
+     * @param payload the payload of the token.
+     */
+    public void add(int tag, int start, int length, int line, int payload) {
+        if (size == tags.length)
+            grow();
+        tags[size] = tag;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        payloads[size] = payload;
+        size++;
+    }
+
+    /**
+     * Append a range of tokens from another buffer, shifting their positions and lines.
+     *
+     * Both buffers must use the same name table, since the name ids of identifiers are copied as they are.
+     *
+     * @param other the buffer to copy tokens from.
+     * @param from the index of the first token to copy.
+     * @param to the index one past the last token to copy.
+     * @param offsetDelta the amount to shift the start offset of each token by.
+     * @param lineDelta the amount to shift the line number of each token by.
+     */
+    public void addRange(TokenBuffer other, int from, int to, int offsetDelta, int lineDelta) {
+        int count = to - from;
+        while (size + count > tags.length)
+            grow();
+        System.arraycopy(other.tags, from, tags, size, count);
+        System.arraycopy(other.starts, from, starts, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        System.arraycopy(other.lines, from, lines, size, count);
+        System.arraycopy(other.payloads, from, payloads, size, count);
+        if (offsetDelta != 0 || lineDelta != 0) {
+            for (int i = size; i < size + count; i++) {
+                starts[i] += offsetDelta;
+                lines[i] += lineDelta;
+            }
+        }
+        size += count;
+    }
+
+    /**
+     * Double the capacity of every array.
+     */
+    private void grow() {
+        int capacity = tags.length * 2;
+        tags = Arrays.copyOf(tags, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+    }
+
+    /**
+     * Get the packed payload of a token.
+     *
+     * @param token the token to pack.
+     * @return the payload of the token, or 0 if the tag alone identifies the token.
+     */
+    private static int getPayload(Token token) {
+        return switch (token.tag) {
+            case Tag.NUM -> ((Num) token).value;
+            case Tag.REAL -> Float.floatToRawIntBits(((Real) token).value);
+            case Tag.ID -> ((Word) token).nameId;
+            case Tag.BASIC -> getBasicTypeIndex((Type) token);
+            default -> 0;
+        };
+    }
+
+    /**
+     * Get the index of a basic type in BASIC_TYPES.
+     *
+     * @param type the basic type.
+     * @return the index of the basic type.
+     */
+    private static int getBasicTypeIndex(Type type) {
+        int index = 0;
+        while (BASIC_TYPES[index] != type)
+            index++;
+        return index;
+    }
+
+    /**
+     * Create the token object for the token at the given index.
+     *
+     * Identifiers, reserved words, basic types, and small integers are shared tokens, so only real
+     * literals and large integers are allocated.
+     *
+     * @param index the index of the token.
+     * @return the token at the index.
+     */
+    public Token toToken(int index) {
+        int payload = payloads[index];
+        return switch (tags[index]) {
+            case Tag.NUM -> Num.valueOf(payload);
+            case Tag.REAL -> new Real(Float.intBitsToFloat(payload));
+            case Tag.ID -> names.get(payload);
+            case Tag.BASIC -> BASIC_TYPES[payload];
+            case Tag.EOF -> EOF_TOKEN;
+            default -> ReservedWords.getWord(tags[index]);
+        };
+    }
+
+    /**
+     * Check if this buffer holds exactly the same tokens as another buffer.
+     *
+     * Tokens must have the same tags, positions, lines, and payloads, except that identifiers are compared
+     * by name, so the buffers may use different name tables. Both buffers must also stop with the same
+     * lexical error, if any.
+     *
+     * @param other the buffer to compare to.
+     * @return true if both buffers hold the same tokens, false otherwise.
+     */
+    public boolean hasSameTokens(TokenBuffer other) {
+        if (size != other.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (tags[i] != other.tags[i] || starts[i] != other.starts[i] || lengths[i] != other.lengths[i] ||
+                    lines[i] != other.lines[i])
+                return false;
+            if (tags[i] == Tag.ID) {
+                if (!names.get(payloads[i]).lexeme.equals(other.names.get(other.payloads[i]).lexeme))
+                    return false;
+            } else if (payloads[i] != other.payloads[i]) {
+                return false;
+            }
+        }
+        if (lexicalError == null || other.lexicalError == null)
+            return lexicalError == other.lexicalError;
+        return lexicalError.getMessage().equals(other.lexicalError.getMessage());
+    }
+
+    /**
+     * Get the number of tokens in the buffer.
+     *
+     * @return the number of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the tag of the token at the given index.
+     *
+     * @param index the index of the token.
+     * @return the tag of the token.
+     */
+    public int getTag(int index) {
+        return tags[index];
+    }
+
+    /**
+     * Get the index of the first character of the token at the given index in the source.
+     *
+     * @param index the index of the token.
+     * @return the start offset of the token.
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Get the number of characters in the token at the given index.
+     *
+     * @param index the index of the token.
+     * @return the length of the token.
+     */
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Get the line number the lexer was on after reading the token at the given index.
+     *
+     * @param index the index of the token.
+     * @return the line number of the token.
+     */
+    public int getLine(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Get the payload of the token at the given index.
+     *
+     * @param index the index of the token.
+     * @return the payload of the token.
+     */
+    public int getPayload(int index) {
+        return payloads[index];
+    }
+
+    /**
+     * Store the error the lexer found after the last token in the buffer.
+     *
+     * @param lexicalError the error found by the lexer.
+     */
+    public void setLexicalError(LexicalException lexicalError) {
+        this.lexicalError = lexicalError;
+    }
+
+    /**
+     * Get the error the lexer found after the last token in the buffer.
+     *
+     * @return the error found by the lexer, or null if the whole source was lexed.
+     */
+    public LexicalException getLexicalError() {
+        return lexicalError;
+    }
+
+    /**
+     * Get the name of the file the tokens were lexed from.
+     *
+     * @return the name of the file.
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * Get the source code the tokens were lexed from.
+     *
+     * @return the source code.
+     */
+    public ByteBuffer getSource() {
+        return source;
+    }
+
+    /**
+     * Get the table the identifiers of the tokens are interned in.
+     *
+     * @return the name table.
+     */
+    public NameTable getNameTable() {
+        return names;
+    }
+}
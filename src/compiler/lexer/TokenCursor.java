@@ -0,0 +1,145 @@
+package compiler.lexer;
+
+import compiler.errors.ErrorContext;
+import compiler.errors.LexicalException;
+import compiler.lexer.tokens.Token;
+
+/**
+ * Reads the tokens of a TokenBuffer one at a time for the parser.
+ *
+ * The cursor behaves the same as the Lexer the buffer was filled by: it returns the same tokens, reports
+ * the same line numbers, and throws the lexer's error when it reaches the point the lexer stopped at.
+ * Because every token is already in the buffer, any token ahead of the cursor can be looked at for free.
+ *
+ * The lexer state needed for error messages is not kept in the buffer. Instead, when an error context is
+ * requested, the source is lexed again up to the current token, which gives exactly the same error
+ * context as lexing one token at a time would have. Errors are rare, so this costs nothing on success.
+ * The lexer used for this is kept, so when the parser recovers and finds more errors further on, it only
+ * lexes the tokens since the previous error.
+ */
+public class TokenCursor implements TokenStream {
+    private final TokenBuffer buffer;
+    private final int end; // Index one past the last token the cursor may read.
+    private int index; // Index of the next token to return.
+    // Number of tokens read from the start of the source, including one that threw an error.
+    private int tokensRead;
+    private boolean missingSemicolon = false;
+    // Lexer used to rebuild the error context, and the number of tokens it has read.
+    private Lexer errorLexer = null;
+    private int errorTokensRead = 0;
+
+    /**
+     * Create a cursor positioned at the first token of the buffer.
+     *
+     * @param buffer the buffer of tokens to read.
+     */
+    public TokenCursor(TokenBuffer buffer) {
+        this(buffer, 0, buffer.size());
+    }
+
+    /**
+     * Create a cursor over the tokens of the buffer from start up to, but not including, end.
+     *
+     * Once the end is reached, the cursor returns EOF tokens.
+     *
+     * @param buffer the buffer of tokens to read.
+     * @param start the index of the first token to read.
+     * @param end the index one past the last token to read.
+     */
+    public TokenCursor(TokenBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.index = start;
+        this.end = end;
+        this.tokensRead = start;
+    }
+
+    /**
+     * Returns the next token in the buffer.
+     *
+     * @return the next token in the buffer.
+     * @throws LexicalException if the lexer found an error at this point in the source.
+     */
+    @Override
+    public Token getNextToken() {
+        tokensRead++;
+        if (index >= end) {
+            if (end == buffer.size() && buffer.getLexicalError() != null)
+                throw buffer.getLexicalError();
+            return TokenBuffer.EOF_TOKEN;
+        }
+        return buffer.toToken(index++);
+    }
+
+    /**
+     * Look at the tag of a token ahead of the cursor without moving the cursor.
+     *
+     * @param distance how many tokens ahead to look, where 0 is the next token getNextToken will return.
+     * @return the tag of the token, or Tag.EOF if it is past the end.
+     */
+    public int peekTag(int distance) {
+        int target = index + distance;
+        if (target >= end)
+            return Tag.EOF;
+        return buffer.getTag(target);
+    }
+
+    /**
+     * Get the index in the buffer of the next token getNextToken will return.
+     *
+     * @return the index of the next token.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the line number the lexer was on after reading the most recently returned token.
+     *
+     * @return the current line number.
+     */
+    @Override
+    public int getCurrentLine() {
+        return buffer.getLine(Math.max(index - 1, 0));
+    }
+
+    /**
+     * Get the index in the buffer of the most recently returned token.
+     *
+     * @return the index of the most recently returned token.
+     */
+    @Override
+    public int getTokenIndex() {
+        return tokensRead - 1;
+    }
+
+    /**
+     * Get the error context for the current error by lexing the source again up to the current token.
+     *
+     * @return the error context for the current error.
+     */
+    @Override
+    public ErrorContext getErrorContext() {
+        if (errorLexer == null || errorTokensRead > tokensRead) {
+            errorLexer = new Lexer(buffer.getFilename(), buffer.getSource());
+            errorTokensRead = 0;
+        }
+        errorLexer.missingSemicolon = missingSemicolon;
+        // The missing semicolon only applies to this error.
+        missingSemicolon = false;
+        try {
+            for (; errorTokensRead < tokensRead; errorTokensRead++)
+                errorLexer.getNextToken();
+        } catch (LexicalException e) {
+            // The lexer has stopped at the same character as when the error was first found.
+        }
+        return errorLexer.getErrorContext();
+    }
+
+    /**
+     * Signal that the current error is a missing semicolon.
+     */
+    @Override
+    public void markMissingSemicolon() {
+        missingSemicolon = true;
+    }
+}
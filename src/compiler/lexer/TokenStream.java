@@ -0,0 +1,63 @@
+package compiler.lexer;
+
+import compiler.errors.ErrorContext;
+import compiler.lexer.tokens.Token;
+
+/**
+ * A source of tokens for the parser.
+ *
+ * This is implemented by the Lexer, which reads each token from the source code as it is requested,
+ * and by the TokenCursor, which reads tokens from a TokenBuffer that was lexed ahead of time. The parser
+ * does not need to know which one it is using.
+ */
+public interface TokenStream {
+
+    /**
+     * Returns the next token in the stream.
+     *
+     * Once the end of the source is reached, an EOF token is returned.
+     *
+     * @return the next token in the stream.
+     */
+    Token getNextToken();
+
+    /**
+     * Get the current line number being read from the source code.
+     *
+     * @return the current line number.
+     */
+    int getCurrentLine();
+
+    /**
+     * Get the index of the most recently returned token, counted from the first token of the source.
+     *
+     * The parser uses this to record the tokens each statement was parsed from.
+     *
+     * @return the index of the most recently returned token.
+     */
+    int getTokenIndex();
+
+    /**
+     * Get the error context for the current error that will provide information about the error location and
+     * source code snippet.
+     *
+     * @return the error context for the current error.
+     */
+    ErrorContext getErrorContext();
+
+    /**
+     * Signal that the current error is a missing semicolon, which may need to be pointed out at the end of
+     * the previous line instead of at the current token.
+     */
+    void markMissingSemicolon();
+
+    /**
+     * Return a string representation of the given tag.
+     *
+     * @param tag The tag to convert to a string.
+     * @return The string representation of the tag.
+     */
+    default String convertTagToString(int tag) {
+        return ReservedWords.get(tag);
+    }
+}
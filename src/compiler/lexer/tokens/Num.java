@@ -4,8 +4,18 @@ import compiler.lexer.Tag;
 
 /**
  * Numerical token representing an integer.
+ *
+ * Tokens for small integers are shared, so they should be created with Num.valueOf().
  */
 public class Num extends Token {
+    // Shared tokens for the integers 0 to 255, which make up most literals such as array indexes.
+    private static final Num[] cache = new Num[256];
+
+    static {
+        for (int i = 0; i < cache.length; i++)
+            cache[i] = new Num(i);
+    }
+
     // The integer value of the token.
     public final int value;
 
@@ -19,6 +29,18 @@ public class Num extends Token {
         this.value = value;
     }
 
+    /**
+     * Returns a Num token with the given integer value, reusing a shared token for small values.
+     *
+     * @param value The integer value of the token.
+     * @return A Num token with the given value.
+     */
+    public static Num valueOf(int value) {
+        if (value >= 0 && value < cache.length)
+            return cache[value];
+        return new Num(value);
+    }
+
     /**
      * Returns the integer value of the token.
      *
@@ -6,6 +6,8 @@ package compiler.lexer.tokens;
 public class Word extends Token {
     // The string representation of the word.
     public String lexeme;
+    // Dense id of the identifier in the NameTable it was interned in, or -1 if it was not interned.
+    public final int nameId;
 
     /**
      * Creates a new Word token with a given lexeme and tag.
@@ -14,8 +16,22 @@ public class Word extends Token {
      * @param tag The tag for the token.
      */
     public Word(String lexeme, int tag) {
+        this(lexeme, tag, -1);
+    }
+
+    /**
+     * Creates a new Word token with a given lexeme, tag, and name id.
+     *
+     * This should only be used by the NameTable when interning identifiers.
+     *
+     * @param lexeme The lexeme of the word.
+     * @param tag The tag for the token.
+     * @param nameId The dense id of the identifier in its NameTable.
+     */
+    public Word(String lexeme, int tag, int nameId) {
         super(tag);
         this.lexeme = lexeme;
+        this.nameId = nameId;
     }
 
     /**
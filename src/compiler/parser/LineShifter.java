@@ -0,0 +1,113 @@
+package compiler.parser;
+
+import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.WorkStack;
+import compiler.parser.ast.nodes.Node;
+import compiler.parser.ast.nodes.expressions.ArrayLocNode;
+import compiler.parser.ast.nodes.expressions.LocNode;
+import compiler.parser.ast.nodes.expressions.ParenthesisNode;
+import compiler.parser.ast.nodes.expressions.operations.BinaryExpressionNode;
+import compiler.parser.ast.nodes.expressions.operations.UnaryNode;
+import compiler.parser.ast.nodes.statements.*;
+
+/**
+ * Moves the nodes of part of the AST to other lines, after an edit added or removed lines before them.
+ *
+ * When the parser parses a statement again after an edit, the statements after it are kept, but the line
+ * numbers stored in them for error messages are out of date if the edit changed the number of lines. This
+ * adds the difference to the line of every node that tracks one.
+ */
+public class LineShifter implements ASTVisitor {
+    private final WorkStack work = new WorkStack();
+    private final int delta; // Number of lines to add to each line.
+
+    /**
+     * Create a shifter that moves nodes by the given number of lines.
+     *
+     * @param delta the number of lines to add to each line.
+     */
+    private LineShifter(int delta) {
+        this.delta = delta;
+    }
+
+    /**
+     * Move a node, and every node under it, by the given number of lines.
+     *
+     * @param node the node to move, or null to do nothing.
+     * @param delta the number of lines to add to each line, which may be negative.
+     */
+    public static void shift(Node node, int delta) {
+        if (node == null || delta == 0)
+            return;
+        LineShifter shifter = new LineShifter(delta);
+        shifter.work.run(() -> node.accept(shifter));
+    }
+
+    /**
+     * Schedule a visit to each of the given nodes that is not null.
+     *
+     * @param nodes the nodes to visit.
+     */
+    private void visitAll(Node... nodes) {
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            Node node = nodes[i];
+            if (node != null)
+                work.schedule(() -> node.accept(this));
+        }
+    }
+
+    @Override
+    public void visit(BlockNode node) {
+        work.scheduleVisits(node.statements, this);
+    }
+
+    @Override
+    public void visit(AssignmentNode node) {
+        node.setLine(node.getLine() + delta);
+        visitAll(node.left, node.expression);
+    }
+
+    @Override
+    public void visit(IfNode node) {
+        visitAll(node.expression, node.thenStatement, node.elseStatement);
+    }
+
+    @Override
+    public void visit(WhileNode node) {
+        visitAll(node.expression, node.body);
+    }
+
+    @Override
+    public void visit(DoWhileNode node) {
+        visitAll(node.body, node.expression);
+    }
+
+    @Override
+    public void visit(LocNode node) {
+        node.setLine(node.getLine() + delta);
+        visitAll(node.array);
+    }
+
+    @Override
+    public void visit(ArrayLocNode node) {
+        node.setLine(node.getLine() + delta);
+        visitAll(node.expression, node.array);
+    }
+
+    @Override
+    public void visit(BinaryExpressionNode node) {
+        node.setLine(node.getLine() + delta);
+        visitAll(node.left, node.right);
+    }
+
+    @Override
+    public void visit(UnaryNode node) {
+        node.setLine(node.getLine() + delta);
+        visitAll(node.expression);
+    }
+
+    @Override
+    public void visit(ParenthesisNode node) {
+        visitAll(node.expression);
+    }
+}
@@ -0,0 +1,258 @@
+package compiler.parser;
+
+import compiler.lexer.Tag;
+import compiler.lexer.TokenBuffer;
+import compiler.lexer.TokenCursor;
+import compiler.parser.ast.nodes.StatementNode;
+import compiler.parser.ast.nodes.declarations.TypeTable;
+import compiler.symbols.SymbolTable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses the statements of the outer block of a program in parallel.
+ *
+ * A program is a single block, whose statements are often large nested blocks that do not depend on each
+ * other. Once the declarations of the outer block are parsed, the symbol table holds everything a statement
+ * can refer to from outside of itself. So the statements can be parsed by separate parsers at the same time,
+ * each with its own copy of the symbol table, as long as it is known where each one starts.
+ *
+ * The boundaries are found by a scan over the tags of the tokens, which follows the grammar only as far as
+ * needed to find where a statement ends: an assignment or break at its ';', a block at its matching '}', and
+ * if, while, and do statements after the statements they contain, including an else. The statements are then
+ * grouped into chunks of about the same number of tokens, and each chunk is parsed on a ForkJoinPool by its own
+ * parser. The chunks are joined in order, so the statements are the same as when they are parsed one after
+ * the other.
+ *
+ * If the scan does not find well formed statements followed by the '}' of the block, or a chunk has an error,
+ * no statements are returned, and the parser parses them sequentially instead, so errors are found and
+ * reported exactly the same as without this.
+ */
+public class ParallelParser {
+    // Statements with fewer tokens than two chunks of this size are not worth splitting.
+    private static final int MIN_CHUNK_TOKENS = 1 << 14;
+    // Chunks per thread, so threads that finish early can pick up more work.
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Parse the statements of the outer block in chunks on the given pool.
+     *
+     * @param tokens the tokens of the program.
+     * @param first the index of the first token after the declarations of the outer block.
+     * @param parentStart the index of the first token of the outer block.
+     * @param scope the symbol table, which must hold all the declarations of the outer block.
+     * @param types the table of array types of the program.
+     * @param pool the pool to parse the chunks on.
+     * @return the statements of the outer block, or null if they must be parsed sequentially.
+     */
+    static List<StatementNode> parseStatements(TokenBuffer tokens, int first, int parentStart, SymbolTable scope,
+                                               TypeTable types, ForkJoinPool pool) {
+        int[] boundaries = findChunkBoundaries(tokens, first, pool.getParallelism() * CHUNKS_PER_THREAD);
+        if (boundaries == null || boundaries.length <= 2)
+            return null;
+
+        List<ForkJoinTask<List<StatementNode>>> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            int start = boundaries[i];
+            int end = boundaries[i + 1];
+            SymbolTable chunkScope = scope.copy();
+            chunks.add(pool.submit(() -> new Parser(types).parseStatements(new TokenCursor(tokens, start, end), end,
+                    parentStart, chunkScope, 0)));
+        }
+
+        List<StatementNode> statements = new ArrayList<>();
+        for (ForkJoinTask<List<StatementNode>> chunk : chunks) {
+            List<StatementNode> parsed = chunk.join();
+            if (parsed == null)
+                return null;
+            statements.addAll(parsed);
+        }
+        return statements;
+    }
+
+    /**
+     * Find the indexes of the tokens to split the statements of the outer block at.
+     *
+     * The first index is the first statement, and the last is the '}' closing the block. Every index in between
+     * is the start of a statement.
+     *
+     * @param tokens the tokens of the program.
+     * @param first the index of the first statement.
+     * @param maxChunks the greatest number of chunks to split the statements into.
+     * @return the indexes of the chunk boundaries in increasing order, or null if the statements are not well
+     *         formed.
+     */
+    private static int[] findChunkBoundaries(TokenBuffer tokens, int first, int maxChunks) {
+        int[] ends = new int[64];
+        int count = 0;
+        int index = first;
+        while (tagAt(tokens, index) != Tag.RBRACE) {
+            index = findStatementEnd(tokens, index);
+            if (index < 0)
+                return null;
+            if (count == ends.length)
+                ends = Arrays.copyOf(ends, count * 2);
+            ends[count++] = index;
+        }
+
+        int chunkTokens = Math.max(MIN_CHUNK_TOKENS, (index - first) / maxChunks);
+        int[] boundaries = new int[count + 1];
+        int chunks = 0;
+        boundaries[chunks++] = first;
+        for (int i = 0; i < count; i++) {
+            if (ends[i] - boundaries[chunks - 1] >= chunkTokens || i == count - 1)
+                boundaries[chunks++] = ends[i];
+        }
+        return Arrays.copyOf(boundaries, chunks);
+    }
+
+    /**
+     * Find the end of the statement that starts at the given token.
+     *
+     * An if, while, or do statement contains another statement, which is scanned next. The if and do statements
+     * are kept on a stack until that statement has ended, to check for an else or to skip the condition after
+     * the body of the do, so deeply nested statements do not use the call stack.
+     *
+     * @param tokens the tokens of the program.
+     * @param index the index of the first token of the statement.
+     * @return the index of the token after the statement, or -1 if it is not well formed.
+     */
+    private static int findStatementEnd(TokenBuffer tokens, int index) {
+        Deque<Integer> waiting = new ArrayDeque<>(); // Tags of the if and do statements around the current one.
+        while (true) {
+            int tag = tagAt(tokens, index);
+            if (tag == Tag.IF || tag == Tag.WHILE) {
+                index = skipCondition(tokens, index + 1);
+                if (index < 0)
+                    return -1;
+                if (tag == Tag.IF)
+                    waiting.push(Tag.IF);
+                continue;
+            } else if (tag == Tag.DO) {
+                waiting.push(Tag.DO);
+                index++;
+                continue;
+            } else if (tag == Tag.LBRACE) {
+                index = skipBlock(tokens, index);
+            } else if (tag == Tag.ID || tag == Tag.BREAK) {
+                index = skipSimpleStatement(tokens, index);
+            } else {
+                return -1;
+            }
+            if (index < 0)
+                return -1;
+
+            // The statements waiting on this one end with it, unless an if takes an else statement.
+            boolean hasElse = false;
+            while (!waiting.isEmpty() && !hasElse) {
+                if (waiting.pop() == Tag.IF) {
+                    hasElse = tagAt(tokens, index) == Tag.ELSE;
+                    if (hasElse)
+                        index++;
+                } else {
+                    if (tagAt(tokens, index) != Tag.WHILE)
+                        return -1;
+                    index = skipCondition(tokens, index + 1);
+                    if (index < 0 || tagAt(tokens, index) != Tag.SEMICOLON)
+                        return -1;
+                    index++;
+                }
+            }
+            if (!hasElse)
+                return index;
+        }
+    }
+
+    /**
+     * Skip a condition in parenthesis, such as the condition of an if statement.
+     *
+     * @param tokens the tokens of the program.
+     * @param index the index of the '(' starting the condition.
+     * @return the index of the token after the matching ')', or -1 if there is none before the end of the statement.
+     */
+    private static int skipCondition(TokenBuffer tokens, int index) {
+        if (tagAt(tokens, index) != Tag.LPAREN)
+            return -1;
+        int depth = 0;
+        while (true) {
+            switch (tagAt(tokens, index)) {
+                case Tag.LPAREN -> depth++;
+                case Tag.RPAREN -> {
+                    if (--depth == 0)
+                        return index + 1;
+                }
+                case Tag.SEMICOLON, Tag.LBRACE, Tag.RBRACE, Tag.EOF -> {
+                    return -1;
+                }
+                default -> { }
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Skip a block, including any blocks nested in it.
+     *
+     * @param tokens the tokens of the program.
+     * @param index the index of the '{' starting the block.
+     * @return the index of the token after the matching '}', or -1 if there is none.
+     */
+    private static int skipBlock(TokenBuffer tokens, int index) {
+        int depth = 0;
+        while (true) {
+            switch (tagAt(tokens, index)) {
+                case Tag.LBRACE -> depth++;
+                case Tag.RBRACE -> {
+                    if (--depth == 0)
+                        return index + 1;
+                }
+                case Tag.EOF -> {
+                    return -1;
+                }
+                default -> { }
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Skip an assignment or break statement, which ends at the first ';'.
+     *
+     * @param tokens the tokens of the program.
+     * @param index the index of the first token of the statement.
+     * @return the index of the token after the ';', or -1 if there is none before a brace.
+     */
+    private static int skipSimpleStatement(TokenBuffer tokens, int index) {
+        while (true) {
+            switch (tagAt(tokens, index)) {
+                case Tag.SEMICOLON -> {
+                    return index + 1;
+                }
+                case Tag.LBRACE, Tag.RBRACE, Tag.EOF -> {
+                    return -1;
+                }
+                default -> { }
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Get the tag of a token, treating the tokens past the end of the buffer as EOF.
+     *
+     * The buffer only ends without an EOF token if the lexer found an error.
+     *
+     * @param tokens the tokens of the program.
+     * @param index the index of the token.
+     * @return the tag of the token, or Tag.EOF if it is past the end of the buffer.
+     */
+    private static int tagAt(TokenBuffer tokens, int index) {
+        return index < tokens.size() ? tokens.getTag(index) : Tag.EOF;
+    }
+}
@@ -1,14 +1,21 @@
 package compiler.parser;
 
+import compiler.errors.CompilerException;
+import compiler.errors.Diagnostic;
+import compiler.errors.LexicalException;
 import compiler.errors.SyntaxException;
-import compiler.lexer.Lexer;
 import compiler.lexer.Tag;
+import compiler.lexer.TokenBuffer;
+import compiler.lexer.TokenCursor;
+import compiler.lexer.TokenStream;
 import compiler.lexer.tokens.*;
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.WorkStack;
 import compiler.parser.ast.nodes.*;
 import compiler.parser.ast.nodes.declarations.*;
 import compiler.parser.ast.nodes.expressions.*;
 import compiler.parser.ast.nodes.expressions.operations.BinaryExpressionNode;
+import compiler.parser.ast.nodes.expressions.operations.Operator;
 import compiler.parser.ast.nodes.expressions.operations.UnaryNode;
 import compiler.parser.ast.nodes.statements.*;
 import compiler.parser.ast.nodes.structures.ProgramNode;
@@ -16,29 +23,483 @@ import compiler.parser.ast.nodes.terminals.*;
 import compiler.symbols.SymbolTable;
 import compiler.symbols.Symbol;
 
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Parser implements ASTVisitor {
     public ProgramNode program;
-    public SymbolTable outerSymbolTable = null; // Current symbol table.
-    public Lexer lexer;
+    public SymbolTable symbolTable = new SymbolTable(); // Declarations of the blocks being parsed.
+    public TokenStream lexer;
     public Token look = null;
     private int loopCount = 0; // Keeps track of loops to validate break statements.
+    // Statements that are still to be parsed, so nested statements do not use the call stack.
+    private final WorkStack work = new WorkStack();
+    // Errors found in the program, in the order they were found.
+    public final List<Diagnostic> diagnostics = new ArrayList<>();
+    // Blocks that have been started but not closed yet, innermost on top, to recover from syntax errors in.
+    private final Deque<OpenBlock> openBlocks = new ArrayDeque<>();
+    // Tokens of the program and pool to parse the statements of the outer block with, if they are parsed in parallel.
+    private TokenBuffer tokens = null;
+    private ForkJoinPool pool = null;
+    // Canonical array types of the program, shared with the parsers of a parallel parse.
+    private final TypeTable types;
 
-    // All binary operators
-    private final Set<Integer> BINARY_OPERATOR_TAGS = Set.of(Tag.MUL, Tag.DIV, Tag.ADD, Tag.SUB, Tag.LE, Tag.LT, Tag.GE,
-            Tag.GT, Tag.EQ, Tag.NE, Tag.AND, Tag.OR);
+    /**
+     * A block that is being parsed, with what is needed to carry on parsing it after a syntax error.
+     */
+    private static final class OpenBlock {
+        final BlockNode node;
+        final int depth; // Number of steps waiting on the work stack when the block was started.
+        final int loopCount; // Number of loops the block is inside of.
+        final int scopeDepth; // Number of scopes open in the symbol table while in the block.
+        boolean parsingDeclarations = true;
+        StatementNode statement = null; // The statement being parsed, or null between statements.
+
+        OpenBlock(BlockNode node, int depth, int loopCount, int scopeDepth) {
+            this.node = node;
+            this.depth = depth;
+            this.loopCount = loopCount;
+            this.scopeDepth = scopeDepth;
+        }
+    }
 
     /***
      * Creates a lexer class and initializes the parsing process immediately.
      *
-     * @param lexer The lexer class to retrieve tokens from.
+     * Errors do not stop the parsing. Each one is stored in diagnostics, and the parser skips to the end of
+     * the statement it was found in and carries on, so a single parse finds every syntax error. A lexical
+     * error does stop the parsing, because the lexer cannot read past an invalid token.
+     *
+     * @param lexer The lexer, or cursor over pre-lexed tokens, to retrieve tokens from.
+     */
+    public Parser(TokenStream lexer) {
+        types = new TypeTable();
+        parse(lexer);
+    }
+
+    /**
+     * Creates a parser for pre-lexed tokens that parses the statements of the outer block in parallel.
+     *
+     * The declarations of the outer block are parsed first, so its symbol table is complete before its statements
+     * are split between the threads of the pool by the ParallelParser. The result, including any errors, is the
+     * same as parsing the tokens sequentially.
+     *
+     * @param tokens The tokens of the program.
+     * @param pool The pool to parse the statements of the outer block on.
      */
-    public Parser(Lexer lexer) {
+    public Parser(TokenBuffer tokens, ForkJoinPool pool) {
+        this.tokens = tokens;
+        this.pool = pool;
+        types = new TypeTable();
+        parse(new TokenCursor(tokens));
+    }
+
+    /**
+     * Creates a parser that has not parsed anything yet, to parse part of a program with parseStatements().
+     *
+     * @param types The table of array types of the program the part belongs to.
+     */
+    Parser(TypeTable types) {
+        this.types = types;
+    }
+
+    /**
+     * Parse a whole program from the given tokens, replacing any program parsed before.
+     *
+     * @param lexer The lexer, or cursor over pre-lexed tokens, to retrieve tokens from.
+     */
+    private void parse(TokenStream lexer) {
         this.lexer = lexer;
         program = new ProgramNode();
-        move();
-        visit(program);
+        symbolTable = new SymbolTable();
+        loopCount = 0;
+        diagnostics.clear();
+        openBlocks.clear();
+        work.truncate(0);
+        try {
+            move();
+            visit(program);
+        } catch (LexicalException e) {
+            report(e);
+        }
+        // Every identifier has been resolved to its declaration, so the table is not needed any more.
+        symbolTable = null;
+    }
+
+    /**
+     * Update the program after an edit to its source, by parsing again only the statements the edit changed.
+     *
+     * The tokens the edit changed are found by comparing the tokens from before and after it, and the smallest
+     * statement that contains them is found from the spans of the statements. A changed token must not be the
+     * first or last token of that statement, as those decide where it starts and ends. If the statement is a
+     * block and the tokens are among its statements, only the statements they are in are parsed again, which
+     * also covers adding and removing statements. Otherwise the statement itself is parsed again, including when
+     * the edit is in the declarations of a block, since they are the scope of all of its statements.
+     *
+     * The statements are parsed from the edited tokens, in the loops that enclose them and in a scope that is
+     * built again from the declarations of the blocks around them, and replace the old ones if they end at the
+     * same token as before. Then the rest of the program would be parsed the same, so every other node is kept,
+     * and only the spans and lines of the nodes after them are moved. Moving spans only touches the statements
+     * that follow in the same nodes, and lines only change when the edit adds or removes lines, so both are much
+     * less work than parsing those nodes again.
+     *
+     * The whole program is parsed again if the new statements have an error or end somewhere else, if the edit
+     * is outside of every block, if the program had errors before the edit, or if it has been flattened by the
+     * type checker, which releases its node objects.
+     *
+     * @param tokens The tokens the program was parsed from.
+     * @param edited The tokens of the source after the edit, as updated by IncrementalLexer.relex().
+     * @param offset The offset in the old source where the edit starts.
+     * @param removedLength The number of characters of the old source the edit removes.
+     * @return true if only part of the program was parsed again, or false if all of it was.
+     */
+    public boolean reparse(TokenBuffer tokens, TokenBuffer edited, int offset, int removedLength) {
+        if (!diagnostics.isEmpty() || tokens.getLexicalError() != null || edited.getLexicalError() != null
+                || program.block == null) {
+            parse(new TokenCursor(edited));
+            return false;
+        }
+        int tokenDelta = edited.size() - tokens.size();
+        int offsetDelta = edited.getSource().limit() - tokens.getSource().limit();
+        int lineDelta = edited.getLine(edited.size() - 1) - tokens.getLine(tokens.size() - 1);
+
+        // Only the tokens touching the edit may have changed, so narrow those down to the ones that did.
+        // If none did, last is the token before the edit, and first the token after it.
+        int first = countTokensEndingBefore(tokens, offset);
+        int last = countTokensStartingBefore(tokens, offset + removedLength + 1) - 1;
+        while (first <= last && first < edited.size() && isSameToken(tokens, first, edited, first, 0, 0))
+            first++;
+        while (last >= first && last + tokenDelta >= first
+                && isSameToken(tokens, last, edited, last + tokenDelta, offsetDelta, lineDelta))
+            last--;
+
+        // Walk down from the block of the program to the smallest statement enclosing the changed tokens.
+        List<SpanNode> ancestors = new ArrayList<>();
+        StatementNode statement = program.block;
+        int start = program.block.getSpanStart();
+        SymbolTable scope = new SymbolTable();
+        int loops = 0;
+        if (!encloses(statement, start, first, last)) {
+            parse(new TokenCursor(edited));
+            return false;
+        }
+        while (true) {
+            StatementNode child = findChildBefore((SpanNode) statement, first - start);
+            if (child == null)
+                break;
+            int childStart = start + ((SpanNode) child).getSpanStart();
+            if (!encloses(child, childStart, first, last))
+                break;
+            if (statement instanceof BlockNode block)
+                declare(scope, block);
+            else if (statement instanceof WhileNode || statement instanceof DoWhileNode)
+                loops++;
+            ancestors.add((SpanNode) statement);
+            statement = child;
+            start = childStart;
+        }
+
+        StatementNode child;
+        if (statement instanceof BlockNode block && isInStatements(block, start, first)) {
+            // Parse again the statements of the block that contain the changed tokens, if any.
+            int from = countStatementsBefore(block, first - start);
+            if (from > 0 && endOf(block.statements.get(from - 1)) > first - start)
+                from--;
+            int to = countStatementsBefore(block, last - start + 1);
+            int oldStart = from < to ? start + ((SpanNode) block.statements.get(from)).getSpanStart() : first;
+            int oldEnd = from < to ? start + endOf(block.statements.get(to - 1)) : first;
+            declare(scope, block);
+            List<StatementNode> statements = parseStatements(new TokenCursor(edited, oldStart, edited.size()),
+                    oldEnd + tokenDelta, start, scope, loops);
+            if (statements == null) {
+                parse(new TokenCursor(edited));
+                return false;
+            }
+            block.statements.subList(from, to).clear();
+            block.statements.addAll(from, statements);
+            block.setSpanWidth(block.getSpanWidth() + tokenDelta);
+            for (int i = from + statements.size(); i < block.statements.size(); i++)
+                move(block.statements.get(i), tokenDelta, lineDelta);
+            child = block;
+        } else {
+            // Parse the statement again as a child of the node enclosing it.
+            if (ancestors.isEmpty()) {
+                parse(new TokenCursor(edited));
+                return false;
+            }
+            SpanNode parent = ancestors.remove(ancestors.size() - 1);
+            int parentStart = start - ((SpanNode) statement).getSpanStart();
+            List<StatementNode> statements = parseStatements(new TokenCursor(edited, start, edited.size()),
+                    start + ((SpanNode) statement).getSpanWidth() + tokenDelta, parentStart, scope, loops);
+            if (statements == null || statements.size() != 1) {
+                parse(new TokenCursor(edited));
+                return false;
+            }
+            replaceChild(parent, statement, statements.get(0));
+            parent.setSpanWidth(parent.getSpanWidth() + tokenDelta);
+            moveFollowing(parent, statements.get(0), tokenDelta, lineDelta);
+            child = (StatementNode) parent;
+        }
+
+        // The nodes enclosing the new statements grow by the change in tokens, and the nodes after them move.
+        for (int i = ancestors.size() - 1; i >= 0; i--) {
+            SpanNode ancestor = ancestors.get(i);
+            ancestor.setSpanWidth(ancestor.getSpanWidth() + tokenDelta);
+            moveFollowing(ancestor, child, tokenDelta, lineDelta);
+            child = (StatementNode) ancestor;
+        }
+        return true;
+    }
+
+    /**
+     * Parse the statements between two tokens, within the given scope and number of loops.
+     *
+     * This is used to parse statements again after an edit, and by the ParallelParser to parse each chunk of the
+     * statements of the outer block.
+     *
+     * @param lexer The cursor positioned at the first token of the statements.
+     * @param end The index of the token after the last statement.
+     * @param parentStart The index of the first token of the node enclosing the statements.
+     * @param scope The symbol table holding the declarations of the blocks the statements are in.
+     * @param loops The number of loops the statements are inside of.
+     * @return The parsed statements, or null if they have an error or do not end at the given token.
+     */
+    List<StatementNode> parseStatements(TokenStream lexer, int end, int parentStart, SymbolTable scope, int loops) {
+        this.lexer = lexer;
+        symbolTable = scope;
+        loopCount = loops;
+        openBlocks.clear();
+        work.truncate(0);
+        List<StatementNode> statements = new ArrayList<>();
+        try {
+            move();
+            while (lexer.getTokenIndex() < end) {
+                StatementNode statement = createStatement();
+                work.run(() -> scheduleStatement(statement, parentStart));
+                statements.add(statement);
+            }
+        } catch (CompilerException e) {
+            return null;
+        }
+        // A missing semicolon is reported without an exception.
+        if (!diagnostics.isEmpty() || lexer.getTokenIndex() != end)
+            return null;
+        return statements;
+    }
+
+    /**
+     * Open a scope in a symbol table holding the declarations of a block that has already been parsed.
+     *
+     * @param scope The symbol table.
+     * @param block The block.
+     */
+    private static void declare(SymbolTable scope, BlockNode block) {
+        scope.enterScope();
+        for (DeclNode decl : block.decls)
+            scope.storeSymbol(decl);
+    }
+
+    /**
+     * Check if a token of an old buffer is the same as a token of a new buffer, once moved by an edit.
+     *
+     * @param tokens The old buffer.
+     * @param index The index of the token in the old buffer.
+     * @param edited The new buffer.
+     * @param editedIndex The index of the token in the new buffer.
+     * @param offsetDelta The number of characters the edit moved the token by.
+     * @param lineDelta The number of lines the edit moved the token by.
+     * @return true if the tokens are the same.
+     */
+    private static boolean isSameToken(TokenBuffer tokens, int index, TokenBuffer edited, int editedIndex,
+                                       int offsetDelta, int lineDelta) {
+        return tokens.getTag(index) == edited.getTag(editedIndex)
+                && tokens.getPayload(index) == edited.getPayload(editedIndex)
+                && tokens.getLength(index) == edited.getLength(editedIndex)
+                && tokens.getStart(index) + offsetDelta == edited.getStart(editedIndex)
+                && tokens.getLine(index) + lineDelta == edited.getLine(editedIndex);
+    }
+
+    /**
+     * Check if a token of a block is in its statements, rather than its declarations or braces.
+     *
+     * @param block The block to check.
+     * @param start The index of the first token of the block.
+     * @param token The index of the token, which must be within the block.
+     * @return true if the token is at or after the first statement, or before the '}' if there are none.
+     */
+    private static boolean isInStatements(BlockNode block, int start, int token) {
+        if (block.statements.isEmpty())
+            return token == start + block.getSpanWidth() - 1;
+        return token >= start + ((SpanNode) block.statements.get(0)).getSpanStart();
+    }
+
+    /**
+     * Get the index of the token after a statement, relative to the first token of its enclosing node.
+     *
+     * @param statement The statement.
+     * @return The index of the token after the statement.
+     */
+    private static int endOf(StatementNode statement) {
+        SpanNode span = (SpanNode) statement;
+        return span.getSpanStart() + span.getSpanWidth();
+    }
+
+    /**
+     * Move a statement, and every node under it, by the given number of tokens and lines.
+     *
+     * The tokens of the nodes under the statement are relative to it, so only the statement itself is changed.
+     *
+     * @param statement The statement to move.
+     * @param tokenDelta The number of tokens to move the statement by.
+     * @param lineDelta The number of lines to move the nodes by.
+     */
+    private static void move(StatementNode statement, int tokenDelta, int lineDelta) {
+        SpanNode span = (SpanNode) statement;
+        span.setSpanStart(span.getSpanStart() + tokenDelta);
+        LineShifter.shift(statement, lineDelta);
+    }
+
+    /**
+     * Check if a statement contains the given tokens, and neither its first nor its last token is one of them.
+     *
+     * @param statement The statement to check.
+     * @param start The index of the first token of the statement.
+     * @param first The index of the first token.
+     * @param last The index of the last token, which is first - 1 if there are none.
+     * @return true if the statement strictly encloses the tokens.
+     */
+    private static boolean encloses(StatementNode statement, int start, int first, int last) {
+        return start < first && last < start + ((SpanNode) statement).getSpanWidth() - 1;
+    }
+
+    /**
+     * Find the last child statement of a node that starts before the given token.
+     *
+     * @param node The node to look in.
+     * @param token The index of the token, relative to the first token of the node.
+     * @return The child statement, or null if there is none.
+     */
+    private static StatementNode findChildBefore(SpanNode node, int token) {
+        if (node instanceof BlockNode block) {
+            int index = countStatementsBefore(block, token);
+            return index == 0 ? null : block.statements.get(index - 1);
+        } else if (node instanceof IfNode ifNode) {
+            if (ifNode.elseStatement != null && ((SpanNode) ifNode.elseStatement).getSpanStart() < token)
+                return ifNode.elseStatement;
+            return ifNode.thenStatement;
+        } else if (node instanceof WhileNode whileNode) {
+            return whileNode.body;
+        } else if (node instanceof DoWhileNode doWhileNode) {
+            return doWhileNode.body;
+        }
+        return null;
+    }
+
+    /**
+     * Count the statements of a block that start before the given token, using a binary search.
+     *
+     * @param block The block to count in.
+     * @param token The index of the token, relative to the first token of the block.
+     * @return The number of statements that start before the token.
+     */
+    private static int countStatementsBefore(BlockNode block, int token) {
+        int low = 0;
+        int high = block.statements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (((SpanNode) block.statements.get(middle)).getSpanStart() < token)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Replace a child statement of a node with a new statement.
+     *
+     * @param node The node the child belongs to.
+     * @param child The child to replace.
+     * @param replacement The statement to replace it with.
+     */
+    private static void replaceChild(SpanNode node, StatementNode child, StatementNode replacement) {
+        if (node instanceof BlockNode block) {
+            int index = countStatementsBefore(block, ((SpanNode) child).getSpanStart());
+            block.statements.set(index, replacement);
+        } else if (node instanceof IfNode ifNode) {
+            if (ifNode.thenStatement == child)
+                ifNode.thenStatement = replacement;
+            else
+                ifNode.elseStatement = replacement;
+        } else if (node instanceof WhileNode whileNode) {
+            whileNode.body = replacement;
+        } else if (node instanceof DoWhileNode doWhileNode) {
+            doWhileNode.body = replacement;
+        }
+    }
+
+    /**
+     * Move the parts of a node that follow one of its child statements by the given number of tokens and lines.
+     *
+     * @param node The node the child belongs to.
+     * @param child The child statement.
+     * @param tokenDelta The number of tokens to move the following statements by.
+     * @param lineDelta The number of lines to move the following nodes by.
+     */
+    private static void moveFollowing(SpanNode node, StatementNode child, int tokenDelta, int lineDelta) {
+        if (node instanceof BlockNode block) {
+            int next = countStatementsBefore(block, ((SpanNode) child).getSpanStart() + 1);
+            for (StatementNode statement : block.statements.subList(next, block.statements.size()))
+                move(statement, tokenDelta, lineDelta);
+        } else if (node instanceof IfNode ifNode && ifNode.thenStatement == child && ifNode.elseStatement != null) {
+            move(ifNode.elseStatement, tokenDelta, lineDelta);
+        } else if (node instanceof DoWhileNode doWhileNode) {
+            LineShifter.shift(doWhileNode.expression, lineDelta);
+        }
+    }
+
+    /**
+     * Count the tokens that end before the given offset, using a binary search.
+     *
+     * @param tokens The tokens to search.
+     * @param offset The offset in the source.
+     * @return The number of tokens that end before the offset.
+     */
+    private static int countTokensEndingBefore(TokenBuffer tokens, int offset) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.getStart(middle) + tokens.getLength(middle) < offset)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Count the tokens that start before the given offset, using a binary search.
+     *
+     * @param tokens The tokens to search.
+     * @param offset The offset in the source.
+     * @return The number of tokens that start before the offset.
+     */
+    private static int countTokensStartingBefore(TokenBuffer tokens, int offset) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.getStart(middle) < offset)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
     }
 
     /**
@@ -56,7 +517,8 @@ public class Parser implements ASTVisitor {
      * if you pass in match(Tag.LBRACE) then it will check the current token is in fact an '}' token.
      *
      * If it doesn't match, it will raise a syntax exception and pass a string with more details. Specific
-     * scenarios for if it is an unexpected end of file or a missing semicolon are handled as well.
+     * scenarios for if it is an unexpected end of file or a missing semicolon are handled as well. A
+     * missing semicolon is reported without raising an exception, and parsing carries on after it.
      *
      * @param tag The expected tag of the current token.
      */
@@ -68,64 +530,114 @@ public class Parser implements ASTVisitor {
         else if (tag == Tag.SEMICOLON) {
             // For printing the error, it's important the lexer knows that it might need
             // to return to the previous line to point out where the ';' was expected to be.
-            lexer.missingSemicolon = true;
-            throw new SyntaxException("expected ';' at end of statement");
+            lexer.markMissingSemicolon();
+            // The rest of the statement was parsed, so carry on as if the ';' was there.
+            report(new SyntaxException("expected ';' at end of statement"));
         } else
             throw new SyntaxException("expected '" + lexer.convertTagToString(tag) + "' instead of '" + look + "'");
     }
 
     /**
-     * Checks that the given tag is a binary operator.
+     * Visit the root node of the program which contains a single block.
+     *
+     * Grammar Rule:
+     * program -> block
      *
-     * @param op The tag to check.
-     * @return true if the tag is a binary operator, false otherwise.
+     * @param node The program node to visit.
      */
-    boolean isBinaryOperation(int op) {
-        return BINARY_OPERATOR_TAGS.contains(op);
+    @Override
+    public void visit(ProgramNode node) {
+        node.block = new BlockNode();
+        scheduleStatement(node.block, 0);
+        while (true) {
+            try {
+                work.runAll();
+                return;
+            } catch (SyntaxException e) {
+                report(e);
+                if (!recover())
+                    return;
+            }
+        }
     }
 
     /**
-     * Gets the precedence of the given operator.
-     *
-     * This is used to determine the order of operations in binary expressions where
-     * higher precedence operators like multiplication and division are given higher
-     * values then lower precedence ones like addition and subtraction.
+     * Store an error in the diagnostics, with its context in the source code.
      *
-     * @param op The binary operator to get the precedence of.
-     * @return The precedence of the operator.
+     * @param e The exception describing the error.
      */
-    int getPrecedence(int op) {
-        return switch (op) {
-            case Tag.MUL, Tag.DIV -> 12;
-            case Tag.ADD, Tag.SUB -> 11;
-            case Tag.LE, Tag.LT, Tag.GE, Tag.GT -> 9;
-            case Tag.EQ, Tag.NE -> 8;
-            case Tag.AND -> 7;
-            case Tag.OR -> 6;
-            default -> -1;
-        };
+    private void report(CompilerException e) {
+        diagnostics.add(new Diagnostic(e, lexer.getErrorContext()));
     }
 
-
     /**
-     * Visit the root node of the program which contains a single block.
+     * Recover from a syntax error so that parsing can carry on and find any more errors.
      *
-     * Grammar Rule:
-     * program -> block
+     * This is panic mode recovery. The tokens up to the end of the statement the error was found in are skipped,
+     * the statement is removed from the innermost open block, and the parser is returned to the state it was in
+     * within that block. Parsing then carries on with the next declaration or statement of the block.
      *
-     * @param node The program node to visit.
+     * @return true if parsing can carry on, or false if the error was outside any block or at the end of the file.
      */
-    @Override
-    public void visit(ProgramNode node) {
-        node.block = new BlockNode();
-        node.block.accept(this);
+    private boolean recover() {
+        OpenBlock block = openBlocks.peek();
+        skipStatement();
+        if (block == null || look.tag == Tag.EOF) {
+            work.truncate(0);
+            return false;
+        }
+
+        // Drop the steps and state of the statement the error was in, which may have started nested blocks.
+        work.truncate(block.depth);
+        symbolTable.exitScopesTo(block.scopeDepth);
+        loopCount = block.loopCount;
+        if (block.statement != null) {
+            block.node.statements.remove(block.node.statements.size() - 1);
+            block.statement = null;
+        }
+
+        if (block.parsingDeclarations)
+            work.schedule(() -> parseDeclarations(block));
+        else
+            work.schedule(() -> parseBlockStatements(block));
+        return true;
+    }
+
+    /**
+     * Skip the tokens up to the end of the current statement.
+     *
+     * The statement ends at the next ';', or at the '}' closing a block that was opened in the skipped tokens,
+     * unless an 'else' follows it. Both are skipped too. A '}' that closes a block opened before the statement
+     * ends it without being skipped, so the block it closes can be finished.
+     */
+    private void skipStatement() {
+        int depth = 0; // Number of blocks opened by the skipped tokens.
+        while (look.tag != Tag.EOF) {
+            if (look.tag == Tag.SEMICOLON && depth == 0) {
+                move();
+                return;
+            } else if (look.tag == Tag.LBRACE) {
+                depth++;
+            } else if (look.tag == Tag.RBRACE) {
+                if (depth == 0)
+                    return;
+                depth--;
+                if (depth == 0) {
+                    move();
+                    if (look.tag != Tag.ELSE)
+                        return;
+                    continue;
+                }
+            }
+            move();
+        }
     }
 
     /**
      * Visit a block node representing a block of code with its own scope.
      *
-     * This parse the declarations and statements of a block. It will also
-     * store the previous symbol table and create a new one for this block.
+     * This parse the declarations of a block, and schedules the parsing of its statements. It will also
+     * open a scope in the symbol table for the declarations of this block.
      *
      * Grammar Rule:
      * block -> '{' decls statements '}'
@@ -135,24 +647,73 @@ public class Parser implements ASTVisitor {
     @Override
     public void visit(BlockNode node) {
         match(Tag.LBRACE);
-        // Save current symbol table, and create a new one for this block.
-        outerSymbolTable = new SymbolTable(outerSymbolTable);
-        node.table = outerSymbolTable;
+        // The declarations of this block are in scope until it is closed.
+        symbolTable.enterScope();
 
+        OpenBlock block = new OpenBlock(node, work.size(), loopCount, symbolTable.getDepth());
+        openBlocks.push(block);
+        parseDeclarations(block);
+    }
+
+    /**
+     * Parse the declarations at the start of a block, and schedule the parsing of its statements.
+     *
+     * @param block The block the declarations belong to.
+     */
+    private void parseDeclarations(OpenBlock block) {
         // So long as next token is a type, parse declarations.
         while (look.tag == Tag.BASIC) {
             DeclNode decl = new DeclNode();
             decl.accept(this);
-            node.decls.add(decl);
+            block.node.decls.add(decl);
         }
+        block.parsingDeclarations = false;
+
+        if (pool != null && openBlocks.size() == 1)
+            parseStatementsInParallel(block);
+        work.schedule(() -> parseBlockStatements(block));
+    }
+
+    /**
+     * Parse the statements of the outer block in parallel, and move to the '}' after them.
+     *
+     * If the statements cannot be split, or any of them has an error, nothing is parsed, and the statements are
+     * parsed sequentially instead, so that errors are found and reported the same way.
+     *
+     * @param block The outer block.
+     */
+    private void parseStatementsInParallel(OpenBlock block) {
+        int blockStart = block.node.getSpanStart();
+        List<StatementNode> statements = ParallelParser.parseStatements(tokens, lexer.getTokenIndex(), blockStart,
+                symbolTable, types, pool);
+        if (statements == null || statements.isEmpty())
+            return;
+        block.node.statements.addAll(statements);
+        lexer = new TokenCursor(tokens, blockStart + endOf(statements.get(statements.size() - 1)), tokens.size());
+        move();
+    }
 
-        // Parse statements until end of block.
-        while (look.tag != Tag.RBRACE) {
-            StatementNode statementNode = parseStatement();
-            node.statements.add(statementNode);
+    /**
+     * Parse the next statement of a block, or the end of the block if there are no more statements.
+     *
+     * Each statement is scheduled on the work stack, followed by another call to this method, so the
+     * statements of a block are parsed one after the other without the block waiting on the call stack.
+     *
+     * @param block The block the statements belong to.
+     */
+    private void parseBlockStatements(OpenBlock block) {
+        // The previous statement, if there was one, has been parsed.
+        block.statement = null;
+        if (look.tag == Tag.RBRACE) {
+            openBlocks.pop();
+            symbolTable.exitScope();
+            match(Tag.RBRACE);
+            return;
         }
-        outerSymbolTable = outerSymbolTable.previousTable;
-        match(Tag.RBRACE);
+        StatementNode statement = createStatement();
+        block.statement = statement;
+        block.node.statements.add(statement);
+        scheduleStatement(statement, block.node.getSpanStart(), () -> parseBlockStatements(block));
     }
 
     /**
@@ -168,79 +729,97 @@ public class Parser implements ASTVisitor {
      */
     @Override
     public void visit(DeclNode node) {
-        node.type = new TypeNode();
-        node.type.accept(this);
+        node.type = parseType();
 
         node.id = new IdNode();
         node.id.accept(this);
 
         // Store declared symbol in symbol table.
-        outerSymbolTable.storeSymbol(node);
+        symbolTable.storeSymbol(node);
 
         match(Tag.SEMICOLON);
     }
 
     /**
-     * Visit a type node representing a basic type and optional array dimensions.
+     * Parse a basic type and its optional array dimensions, into the canonical TypeNode of the type.
      *
-     * This method will parse the basic type (int or float) and parse its dimensions
-     * if it is an array. This is called during the declarations.
+     * The size of each dimension, an integer, is parsed in turn, and the type is then looked up in the table of
+     * types, so every declaration of the same type shares one TypeNode. This is called during the declarations.
      *
+     * Grammar Rules:
      * type -> 'int' [array] | 'float' [array]
+     * array -> '[' num ']' [array]
      *
-     * @param node The type node to visit.
+     * @return The canonical type node.
+     * @throws SyntaxException If an array size is not an integer, or the array is too large.
      */
-    @Override
-    public void visit(TypeNode node) {
-        node.type = (Type) look;
+    private TypeNode parseType() {
+        Type basic = (Type) look;
         match(Tag.BASIC);
 
-        if (look.tag == Tag.LBRACKET) {
-            node.array = new ArrayTypeNode();
-            node.array.accept(this);
+        int[] sizes = new int[0];
+        while (look.tag == Tag.LBRACKET) {
+            match(Tag.LBRACKET);
+            if (look.tag != Tag.NUM)
+                throw new SyntaxException("expected integer array size instead of '" + look + "'");
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+            sizes[sizes.length - 1] = ((Num) look).value;
+            match(Tag.NUM);
+            match(Tag.RBRACKET);
+        }
+
+        try {
+            return types.of(basic, sizes);
+        } catch (ArithmeticException e) {
+            throw new SyntaxException("array type '" + basic + "[]".repeat(sizes.length) + "' is too large");
         }
     }
 
     /**
-     * Visit an array of a type node representing an array of a basic type.
+     * Creates a new statement node based on the next token and parses it.
      *
-     * This method will create a recursive array type node which each additional dimension of the
-     * array is stored as an additional ArrayTypeNode. Each dimension also will have its size, an integer,
-     * parsed and stored.
+     * @return The parsed statement node.
+     * @throws SyntaxException If the next token is not a valid start of a statement.
+     */
+    public StatementNode parseStatement() {
+        StatementNode n = createStatement();
+        work.run(() -> scheduleStatement(n, 0));
+        return n;
+    }
+
+    /**
+     * Schedule the parsing of a statement created by createStatement, followed by the given steps.
      *
-     * Grammar Rule:
-     * array -> '[' num ']' [array]
+     * The span of the statement is recorded around its parsing. Until a node is finished its span start is the
+     * index of its first token, so the statements inside it can be made relative to it, and it is made relative
+     * to its own enclosing node once it is finished.
      *
-     * @param node Array type node to visit.
-     * @throws SyntaxException If the array size is not an integer.
+     * @param statement The statement to parse.
+     * @param parentStart The index of the first token of the node enclosing the statement.
+     * @param after The steps to run once the statement has been parsed.
      */
-    @Override
-    public void visit(ArrayTypeNode node) {
-        match(Tag.LBRACKET);
-        if (look.tag != Tag.NUM)
-            throw new SyntaxException("expected integer array size instead of '" + look + "'");
-        node.size = new NumNode();
-        node.size.accept(this);
-        match(Tag.RBRACKET);
-
-        if (look.tag == Tag.LBRACKET) {
-            node.type = new ArrayTypeNode();
-            node.type.accept(this);
-        }
+    private void scheduleStatement(StatementNode statement, int parentStart, Runnable... after) {
+        SpanNode span = (SpanNode) statement;
+        span.setSpanStart(lexer.getTokenIndex());
+        work.schedule(after);
+        work.schedule(() -> statement.accept(this), () -> {
+            span.setSpanWidth(lexer.getTokenIndex() - span.getSpanStart());
+            span.setSpanStart(span.getSpanStart() - parentStart);
+        });
     }
 
     /**
-     * Creates a new statement node based on the next token and parses it.
+     * Creates a new statement node based on the next token, without parsing it.
      *
      * This method will create a new statement node based on the next token. For example if the next token is
-     * an identifier then the only valid possibility is that it's the beginning of a statement node. Once
-     * the new statement node is created its visited as well to be parsed.
+     * an identifier then the only valid possibility is that it's the beginning of a statement node. The
+     * caller is responsible for visiting the new node, usually by scheduling it on the work stack.
      *
-     * @return The parsed statement node.
+     * @return The new statement node.
      * @throws SyntaxException If the next token is not a valid start of a statement.
      */
-    public StatementNode parseStatement() {
-        StatementNode n = switch (look.tag) {
+    private StatementNode createStatement() {
+        return switch (look.tag) {
             case Tag.ID -> new AssignmentNode();
             case Tag.IF -> new IfNode();
             case Tag.WHILE -> new WhileNode();
@@ -251,8 +830,6 @@ public class Parser implements ASTVisitor {
             default ->
                     throw new SyntaxException("invalid start of a statement '" + lexer.convertTagToString(look.tag) + "'");
         };
-        n.accept(this);
-        return n;
     }
 
     /**
@@ -270,8 +847,7 @@ public class Parser implements ASTVisitor {
     public void visit(AssignmentNode node) {
         node.setLine(lexer.getCurrentLine()); // Used for error messages.
 
-        node.left = new LocNode();
-        node.left.accept(this);
+        node.left = parseLoc();
 
         match(Tag.ASSIGN);
         node.expression = parseExpression();
@@ -281,8 +857,8 @@ public class Parser implements ASTVisitor {
     /**
      * Visit an if node representing an if statement with an optional else statement.
      *
-     * This method will parse the expression inside the if statement and its corresponding then statement.
-     * If there is an else tag after the then statement, it will additionally parse and store that.
+     * This method will parse the expression inside the if statement and schedule its corresponding then
+     * statement. If there is an else tag after the then statement, it will additionally parse and store that.
      *
      * Grammar Rule:
      * if -> 'if' '(' expression ')' statement ['else' statement]
@@ -296,18 +872,27 @@ public class Parser implements ASTVisitor {
         node.expression = parseExpression();
         match(Tag.RPAREN);
 
-        node.thenStatement = parseStatement();
+        node.thenStatement = createStatement();
+        scheduleStatement(node.thenStatement, node.getSpanStart(), () -> parseElse(node));
+    }
 
+    /**
+     * Parse the optional else statement of an if node, once its then statement has been parsed.
+     *
+     * @param node The if node the else statement belongs to.
+     */
+    private void parseElse(IfNode node) {
         if (look.tag == Tag.ELSE) {
             match(Tag.ELSE);
-            node.elseStatement = parseStatement();
+            node.elseStatement = createStatement();
+            scheduleStatement(node.elseStatement, node.getSpanStart());
         }
     }
 
     /**
      * Visit a while node representing a while loop.
      *
-     * This method will parse the expression inside the while loop and its corresponding body statement.
+     * This method will parse the expression inside the while loop and schedule its corresponding body statement.
      *
      * while -> 'while' '(' expression ')' statement
      *
@@ -322,14 +907,15 @@ public class Parser implements ASTVisitor {
 
         // loopCount is needed to validate break statements.
         loopCount++;
-        node.body = parseStatement();
-        loopCount--;
+        node.body = createStatement();
+        scheduleStatement(node.body, node.getSpanStart(), () -> loopCount--);
     }
 
     /**
      * Visit a do while node representing a do while loop.
      *
-     * This method will parse the body of the loop and the expression that is checked at the end of the loop.
+     * This method will schedule the body of the loop and then the expression that is checked at the end of
+     * the loop.
      *
      * Grammar Rule:
      * do -> 'do' statement 'while' '(' expression ')' ';'
@@ -341,7 +927,16 @@ public class Parser implements ASTVisitor {
         match(Tag.DO);
         // loopCount is needed to validate break statements.
         loopCount++;
-        node.body = parseStatement();
+        node.body = createStatement();
+        scheduleStatement(node.body, node.getSpanStart(), () -> parseDoWhileCondition(node));
+    }
+
+    /**
+     * Parse the condition at the end of a do while loop, once its body has been parsed.
+     *
+     * @param node The do while node the condition belongs to.
+     */
+    private void parseDoWhileCondition(DoWhileNode node) {
         loopCount--;
 
         match(Tag.WHILE);
@@ -351,6 +946,33 @@ public class Parser implements ASTVisitor {
         match(Tag.SEMICOLON);
     }
 
+    /**
+     * Parse a loc, an identifier with optional array indexes, on the left side of an assignment.
+     *
+     * Grammar Rule:
+     * loc -> id [array]
+     *
+     * @return The parsed loc node.
+     */
+    private LocNode parseLoc() {
+        LocNode node = new LocNode();
+        node.accept(this);
+
+        // Each additional index of the array is linked to the previous one.
+        ArrayLocNode last = null;
+        while (look.tag == Tag.LBRACKET) {
+            ArrayLocNode index = new ArrayLocNode();
+            index.accept(this);
+            index.expression = parseExpression();
+            match(Tag.RBRACKET);
+            if (last == null)
+                node.array = index;
+            else
+                last.array = index;
+            last = index;
+        }
+        return node;
+    }
 
     /**
      * Visit a loc node representing an identifier or an array.
@@ -359,7 +981,8 @@ public class Parser implements ASTVisitor {
      * IdNode if it exists. If it can't be found then it will raise a syntax exception saying
      * it is not declared.
      *
-     * If the identifier is followed by a '[' then it will try to parse the array indexes as well.
+     * The array indexes that may follow the identifier are parsed by the caller, either parseLoc
+     * or parseExpression.
      *
      * Grammar Rule:
      * loc -> id [array]
@@ -370,27 +993,21 @@ public class Parser implements ASTVisitor {
     @Override
     public void visit(LocNode node) {
         // Ensure the original line is stored in case the id/array extends over multiple lines.
-        int line = lexer.getCurrentLine();
-        Symbol symbol = outerSymbolTable.getSymbol(look);
+        node.setLine(lexer.getCurrentLine());
+        Symbol symbol = look instanceof Word word ? symbolTable.getSymbol(word) : null;
         if (symbol == null)
             throw new SyntaxException("'" + look + "' is not declared");
         // Use previously created IdNode from symbol table.
         node.id = symbol.id;
         move();
-
-        if (look.tag == Tag.LBRACKET) {
-            node.array = new ArrayLocNode();
-            node.array.accept(this);
-        }
-        node.setLine(line);
     }
 
     /**
-     * Visit an array loc node representing accessing an array element of an identifier.
+     * Visit an array loc node representing a single index of an array access.
      *
-     * This will continue to parse the array indexes as expressions until there are no more
-     * '[' tokens. This represents accessing an array. For example, x[3+5][3] would involve parsing
-     * the 3+5 and 3 as expressions here.
+     * This only parses the opening '['. The index expression and the closing ']' are parsed by the
+     * caller, either parseLoc or parseExpression. For example, x[3+5][3] would have two array loc
+     * nodes, with the 3+5 and 3 as their expressions.
      *
      * array -> '[' expression ']' [array]
      *
@@ -398,56 +1015,24 @@ public class Parser implements ASTVisitor {
      */
     @Override
     public void visit(ArrayLocNode node) {
-        int line = lexer.getCurrentLine();
-
+        node.setLine(lexer.getCurrentLine());
         match(Tag.LBRACKET);
-        node.expression = parseExpression();
-        match(Tag.RBRACKET);
-
-        if (look.tag == Tag.LBRACKET) {
-            node.array = new ArrayLocNode();
-            node.array.accept(this);
-        }
-
-        node.setLine(line);
     }
 
     /**
-     * Parse an expression which can be a binary expression or a factor.
+     * Parse an expression made of factors joined by binary operators.
      *
-     * This method will first parse a factor such as a number, identifier, or parenthesis. If the next token
-     * is a binary operator then that means it must be part of a binary expression. So the left hand side will
-     * be passed into parseBinaryExpression to continue parsing the expression. If it is not a binary operator,
-     * then the factor can just b returned.
+     * This is an operator precedence parser that keeps the nodes it has started but not finished on a stack,
+     * instead of on the call stack, so expressions can be nested as deeply as memory allows. A node is pending
+     * while it waits for its last child: a binary expression for its right hand side, a unary node for its
+     * factor, and a parenthesis or array index for its expression and closing token.
      *
-     * For example, with the expression "3 + 5" the 3 would be parsed as a factor, then it would look at
-     * the next token of '+' and know it's a binary expression so it'd call parseBinaryExpression with the 3
-     * as the left hand side.
-     *
-     * @return The parsed expression node.
-     */
-    public ExpressionNode parseExpression() {
-        ExpressionNode n = parseFactor();
-
-        if (isBinaryOperation(look.tag))
-            return parseBinaryExpression(n, 0);
-        else
-            return n;
-    }
-
-    /**
-     * Parse a binary expression given the left hand side and the precedence of the operator.
-     *
-     * This method will recursively parse the binary expression so long as it is not a lower precedence.
-     * Each additionally parsed expression will be nested inside the previous one to ensure the higher
-     * precedence ones are always evaluated first in the tree.
-     *
-     * Each time a new one is parsed, the combination will be stored as a new binary expression node and
-     * represented as the LHS, which will be the final node returned. The LHS returned in the end is the entire
-     * tree parsed here, not simply the left hand side.
-     *
-     * The idea behind this algorithm is that higher precedence operators will always be nested deeper within the
-     * tree so that they will be evaluated first.
+     * Once a factor is complete, the unary operators in front of it take it. Then, if the next token is a
+     * binary operator, every pending binary expression whose operator binds tighter takes the factor as its
+     * right hand side, and becomes the left hand side of the next operator. Because operators of the same
+     * precedence are left associative, 2 - 3 - 4 is grouped as (2 - 3) - 4. If the next token is not an operator,
+     * every pending binary expression is finished, and the closing token finishes the parenthesis or array
+     * index on top of the stack, which is then a complete factor itself.
      *
      * Example A: 2 * 3 + 4
      *         (+)
@@ -463,38 +1048,82 @@ public class Parser implements ASTVisitor {
      *        /  \
      *       3    4
      *
-     * @param lhs The left hand side of the binary expression.
-     * @param precedence The precedence of the current operator.
-     * @return A binary expression node.
+     * Grammar Rule:
+     * expression -> factor [operator expression]
+     *
+     * @return The parsed expression node.
      */
-    public ExpressionNode parseBinaryExpression(ExpressionNode lhs, int precedence) {
-        // Continue to parse so long as the next operator is not lower precedence.
-        while (isBinaryOperation(look.tag) && (getPrecedence(look.tag) >= precedence)) {
-            // Get the operator and move onto the expression
-            Token op = look;
-            move();
-            // Parse the expression on the right hand side.
-            ExpressionNode rhs = parseExpression();
-
-            // Now if the next operator is higher precedence than the current operator, then
-            // it should be handled first, so we need to take the current RHS and nest it
-            // inside the next operator.
-            while (getPrecedence(look.tag) > getPrecedence(op.tag))
-                rhs = parseBinaryExpression(rhs, getPrecedence(look.tag));
-
-            // Create a new binary node that will be the returned value which is the current LHS and RHS
-            // combined with the operator.
-            lhs = new BinaryExpressionNode(lhs, rhs, op.toString());
-            lhs.accept(this);
+    public ExpressionNode parseExpression() {
+        // Nodes that have been started but are still waiting for their last child, innermost on top.
+        Deque<ExpressionNode> pending = new ArrayDeque<>();
+        ExpressionNode operand = parseFactor(pending);
+        while (true) {
+            // The factor is complete, so the unary operators in front of it apply to it.
+            while (pending.peek() instanceof UnaryNode unary) {
+                pending.pop();
+                unary.expression = operand;
+                operand = unary;
+            }
+
+            Operator operator = Operator.binary(look.tag);
+            if (operator != null) {
+                operand = completeBinaryExpressions(pending, operand, operator.precedence);
+                pending.push(new BinaryExpressionNode(operand, null, operator));
+                move();
+                operand = parseFactor(pending);
+                continue;
+            }
+
+            operand = completeBinaryExpressions(pending, operand, -1);
+            if (pending.peek() instanceof ParenthesisNode parenthesis) {
+                match(Tag.RPAREN);
+                pending.pop();
+                parenthesis.expression = operand;
+                operand = parenthesis;
+            } else if (pending.peek() instanceof ArrayLocNode index) {
+                match(Tag.RBRACKET);
+                pending.pop();
+                index.expression = operand;
+                if (look.tag == Tag.LBRACKET) {
+                    index.array = new ArrayLocNode();
+                    index.array.accept(this);
+                    pending.push(index.array);
+                    operand = parseFactor(pending);
+                } else {
+                    // The last index of the array, so the loc node under it is complete.
+                    operand = pending.pop();
+                }
+            } else {
+                return operand;
+            }
+        }
+    }
+
+    /**
+     * Finish the pending binary expressions whose operators bind tighter than the next operator.
+     *
+     * @param pending The stack of pending nodes.
+     * @param operand The complete expression to the left of the next operator.
+     * @param precedence The precedence of the next operator, or -1 to finish every pending binary expression.
+     * @return The complete expression to the left of the next operator, after finishing the binary expressions.
+     */
+    private ExpressionNode completeBinaryExpressions(Deque<ExpressionNode> pending, ExpressionNode operand,
+                                                     int precedence) {
+        while (pending.peek() instanceof BinaryExpressionNode binary
+                && precedence < binary.operator.getRightPrecedence()) {
+            pending.pop();
+            binary.right = operand;
+            binary.accept(this);
+            operand = binary;
         }
-        return lhs;
+        return operand;
     }
 
     /**
      * Visit a binary expression node representing a binary operation on two expressions.
      *
-     * The actual parsing is handled in parseBinaryExpression, this method is just used to set the line number
-     * for error messages.
+     * The actual parsing is handled in parseExpression, this method is just used to set the line number
+     * for error messages once the node is complete.
      *
      * @param node The binary expression node to visit.
      */
@@ -507,7 +1136,8 @@ public class Parser implements ASTVisitor {
      * Visit a unary node representing a unary operation on an expression.
      *
      * A unary node will only be created if it already has seen that there is a unary operator, so
-     * a unary node will always contain an operator and expression.
+     * a unary node will always contain an operator and expression. This only parses the operator, and
+     * the factor it applies to is parsed by parseExpression.
      *
      * Grammar Rule:
      * unary -> '-' factor | '!' factor
@@ -515,46 +1145,60 @@ public class Parser implements ASTVisitor {
      */
     @Override
     public void visit(UnaryNode node) {
-        int line = lexer.getCurrentLine();
+        node.setLine(lexer.getCurrentLine());
 
-        node.operator = look;
+        node.operator = Operator.unary(look.tag);
         match(look.tag);
-
-        node.expression = parseFactor();
-
-        node.setLine(line);
     }
 
     /**
-     * Parse a single factor and return the expression node.
+     * Parse tokens until a factor is complete, and return that factor.
      *
      * This method is responsible for determining what type of factor the next expression is by looking
      * at the next token. For example if it begins with an identifier, it knows it must be a LocNode.
+     * Unary operators, parenthesis and array indexes contain another factor or expression, so they are
+     * pushed onto the stack of pending nodes and the method carries on with the next token, until it
+     * reaches a number, boolean, or identifier that is not followed by an index.
      *
      * Grammar Rule:
      * factor -> unary | parenthesis | num | real | loc | 'true' | 'false'
      *
+     * @param pending The stack of pending nodes.
      * @return The parsed expression node.
      * @throws SyntaxException If the next token is not a valid factor.
      */
-    public ExpressionNode parseFactor() {
-        ExpressionNode n = switch (look.tag) {
-            case Tag.SUB, Tag.NOT -> new UnaryNode();
-            case Tag.LPAREN -> new ParenthesisNode();
-            case Tag.NUM -> new NumNode();
-            case Tag.REAL -> new RealNode();
-            case Tag.ID -> new LocNode();
-            case Tag.TRUE -> new TrueNode();
-            case Tag.FALSE -> new FalseNode();
-            default -> throw new SyntaxException("expected factor instead of '" + look + "'");
-        };
-        n.accept(this);
-        return n;
+    private ExpressionNode parseFactor(Deque<ExpressionNode> pending) {
+        while (true) {
+            ExpressionNode n = switch (look.tag) {
+                case Tag.SUB, Tag.NOT -> new UnaryNode();
+                case Tag.LPAREN -> new ParenthesisNode();
+                case Tag.NUM -> new NumNode();
+                case Tag.REAL -> new RealNode();
+                case Tag.ID -> new LocNode();
+                case Tag.TRUE -> new TrueNode();
+                case Tag.FALSE -> new FalseNode();
+                default -> throw new SyntaxException("expected factor instead of '" + look + "'");
+            };
+            n.accept(this);
+
+            if (n instanceof LocNode loc && look.tag == Tag.LBRACKET) {
+                pending.push(loc);
+                loc.array = new ArrayLocNode();
+                loc.array.accept(this);
+                pending.push(loc.array);
+            } else if (n instanceof UnaryNode || n instanceof ParenthesisNode) {
+                pending.push(n);
+            } else {
+                return n;
+            }
+        }
     }
 
     /**
      * Visit a parenthesis node representing an expression inside parenthesis.
      *
+     * This only parses the opening '(', and the expression and closing ')' are parsed by parseExpression.
+     *
      * Grammar Rule:
      * parenthesis -> '(' expression ')'
      *
@@ -563,8 +1207,6 @@ public class Parser implements ASTVisitor {
     @Override
     public void visit(ParenthesisNode node) {
         match(Tag.LPAREN);
-        node.expression = parseExpression();
-        match(Tag.RPAREN);
     }
 
     /**
@@ -595,9 +1237,11 @@ public class Parser implements ASTVisitor {
      */
     @Override
     public void visit(IdNode node) {
-        node.id = look.toString();
-        node.word = (Word) look;
+        // Match before storing the token, as it is only a word if it is an identifier.
+        Token token = look;
         match(Tag.ID);
+        node.id = token.toString();
+        node.word = (Word) token;
     }
 
     /**
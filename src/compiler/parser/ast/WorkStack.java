@@ -0,0 +1,113 @@
+package compiler.parser.ast;
+
+import compiler.parser.ast.arena.ArenaVisitor;
+import compiler.parser.ast.arena.AstArena;
+import compiler.parser.ast.nodes.Node;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * A stack of steps that still have to be run, used to walk the AST without recursion.
+ *
+ * A visit method that would call accept() on its children instead schedules those calls, followed by any work
+ * that has to happen after them, and then returns. The steps are run in the order they were scheduled in, and
+ * steps scheduled while a step is running are all run before the steps that were already waiting. This gives
+ * the same order as the recursive calls, but the nesting of the program is kept on the heap instead of the
+ * thread's stack, so deeply nested blocks and statements cannot overflow it.
+ */
+public class WorkStack {
+    private final ArrayDeque<Runnable> steps = new ArrayDeque<>();
+
+    /**
+     * Schedule steps to run, in the given order, before any step that is already waiting.
+     *
+     * @param steps the steps to run.
+     */
+    public void schedule(Runnable... steps) {
+        for (int i = steps.length - 1; i >= 0; i--)
+            this.steps.push(steps[i]);
+    }
+
+    /**
+     * Schedule a visit to each of the given nodes, in order, followed by the given steps.
+     *
+     * @param nodes the nodes to visit.
+     * @param visitor the visitor to visit them with.
+     * @param after the steps to run once every node has been visited.
+     */
+    public void scheduleVisits(List<? extends Node> nodes, ASTVisitor visitor, Runnable... after) {
+        schedule(after);
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            steps.push(() -> node.accept(visitor));
+        }
+    }
+
+    /**
+     * Schedule a visit to each node of a list of siblings in an arena, in order, followed by the given steps.
+     *
+     * @param arena the arena holding the nodes.
+     * @param first the index of the first node of the list, or AstArena.NONE if it is empty.
+     * @param visitor the visitor to visit them with.
+     * @param after the steps to run once every node has been visited.
+     */
+    public void scheduleVisits(AstArena arena, int first, ArenaVisitor visitor, Runnable... after) {
+        schedule(after);
+        int count = 0;
+        for (int node = first; node != AstArena.NONE; node = arena.getNext(node))
+            count++;
+        int[] nodes = new int[count];
+        for (int i = 0, node = first; i < count; i++, node = arena.getNext(node))
+            nodes[i] = node;
+        for (int i = count - 1; i >= 0; i--) {
+            int node = nodes[i];
+            steps.push(() -> arena.accept(node, visitor));
+        }
+    }
+
+    /**
+     * Run a step, and every step it schedules, until they are all finished.
+     *
+     * This can be called from within a running step, in which case only the steps scheduled from then on are
+     * run, and the steps that were already waiting are left for the outer call.
+     *
+     * @param step the first step to run.
+     */
+    public void run(Runnable step) {
+        int waiting = steps.size();
+        steps.push(step);
+        while (steps.size() > waiting)
+            steps.pop().run();
+    }
+
+    /**
+     * Run waiting steps, and every step they schedule, until there are none left.
+     */
+    public void runAll() {
+        while (!steps.isEmpty())
+            steps.pop().run();
+    }
+
+    /**
+     * Get the number of waiting steps.
+     *
+     * @return the number of waiting steps.
+     */
+    public int size() {
+        return steps.size();
+    }
+
+    /**
+     * Remove the most recently scheduled steps, so only the given number of steps are left waiting.
+     *
+     * This is used after a step has thrown an exception, to drop the steps that belonged to the work it
+     * was part of, and carry on from an earlier point.
+     *
+     * @param size the number of steps to leave waiting.
+     */
+    public void truncate(int size) {
+        while (steps.size() > size)
+            steps.pop();
+    }
+}
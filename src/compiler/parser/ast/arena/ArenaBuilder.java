@@ -0,0 +1,229 @@
+package compiler.parser.ast.arena;
+
+import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.WorkStack;
+import compiler.parser.ast.nodes.Node;
+import compiler.parser.ast.nodes.declarations.ArrayTypeNode;
+import compiler.parser.ast.nodes.declarations.DeclNode;
+import compiler.parser.ast.nodes.declarations.TypeNode;
+import compiler.parser.ast.nodes.expressions.ArrayLocNode;
+import compiler.parser.ast.nodes.expressions.LocNode;
+import compiler.parser.ast.nodes.expressions.ParenthesisNode;
+import compiler.parser.ast.nodes.expressions.operations.BinaryExpressionNode;
+import compiler.parser.ast.nodes.expressions.operations.UnaryNode;
+import compiler.parser.ast.nodes.statements.*;
+import compiler.parser.ast.nodes.structures.ProgramNode;
+import compiler.parser.ast.nodes.terminals.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Copies a parsed AST from node objects into an AstArena.
+ *
+ * Children are added before their parents, so the index of each child is known when its parent is added. Each
+ * visit schedules the adding of its children on a work stack, followed by a step that adds the node itself from
+ * the indexes of its children, so deeply nested programs do not use the call stack. Locations refer to the
+ * declaration of their identifier, which replaces the shared IdNode the parser looked up in the symbol table,
+ * and each declaration keeps the symbol the parser created for it.
+ */
+public class ArenaBuilder implements ASTVisitor {
+    private final AstArena arena = new AstArena();
+    private final WorkStack work = new WorkStack();
+    // Index of the declaration node for the IdNode of each declared identifier.
+    private final Map<IdNode, Integer> declarations = new IdentityHashMap<>();
+    private int last = AstArena.NONE; // Index of the most recently added node.
+
+    /**
+     * Copy the AST of a program into a new arena.
+     *
+     * @param program the program, as parsed into node objects.
+     * @return the arena holding the same AST.
+     */
+    public static AstArena build(ProgramNode program) {
+        ArenaBuilder builder = new ArenaBuilder();
+        program.accept(builder);
+        return builder.arena;
+    }
+
+    /**
+     * Schedule the adding of the given children, in order, followed by a step that is given their indexes.
+     *
+     * @param children the children to add, any of which may be null.
+     * @param then the step adding the node, given the index of each child, or NONE for a null child.
+     */
+    private void addChildren(List<? extends Node> children, Consumer<int[]> then) {
+        int[] indexes = new int[children.size()];
+        List<Runnable> steps = new ArrayList<>(children.size() * 2 + 1);
+        for (int i = 0; i < children.size(); i++) {
+            Node child = children.get(i);
+            int index = i;
+            if (child == null) {
+                indexes[index] = AstArena.NONE;
+                continue;
+            }
+            // The steps the visit schedules run before the next one, so last is then the index of the child.
+            steps.add(() -> child.accept(this));
+            steps.add(() -> indexes[index] = last);
+        }
+        steps.add(() -> then.accept(indexes));
+        work.schedule(steps.toArray(Runnable[]::new));
+    }
+
+    /**
+     * Schedule the adding of the given children, in order, followed by a step that is given their indexes.
+     *
+     * @param then the step adding the node, given the index of each child, or NONE for a null child.
+     * @param children the children to add, any of which may be null.
+     */
+    private void addChildren(Consumer<int[]> then, Node... children) {
+        addChildren(Arrays.asList(children), then);
+    }
+
+    /**
+     * Link added nodes together as siblings.
+     *
+     * @param indexes the indexes of the added nodes.
+     * @param from the position in indexes of the first node of the list.
+     * @param to the position in indexes after the last node of the list.
+     * @return the index of the first node, or NONE if the list is empty.
+     */
+    private int link(int[] indexes, int from, int to) {
+        for (int i = from; i + 1 < to; i++)
+            arena.setNext(indexes[i], indexes[i + 1]);
+        return from < to ? indexes[from] : AstArena.NONE;
+    }
+
+    @Override
+    public void visit(ProgramNode node) {
+        work.run(() -> node.block.accept(this));
+        arena.setRoot(last);
+    }
+
+    @Override
+    public void visit(BlockNode node) {
+        List<Node> children = new ArrayList<>(node.decls.size() + node.statements.size());
+        children.addAll(node.decls);
+        children.addAll(node.statements);
+        int declCount = node.decls.size();
+        addChildren(children, indexes -> {
+            int decls = link(indexes, 0, declCount);
+            int statements = link(indexes, declCount, indexes.length);
+            last = arena.add(NodeKind.BLOCK, 0, decls, statements, AstArena.NONE, 0);
+        });
+    }
+
+    @Override
+    public void visit(DeclNode node) {
+        addChildren(indexes -> {
+            last = arena.add(NodeKind.DECL, 0, indexes[0], AstArena.NONE, AstArena.NONE,
+                    arena.addWord(node.id.word));
+            declarations.put(node.id, last);
+            arena.setSymbol(last, node.id.symbol);
+        }, node.type);
+    }
+
+    @Override
+    public void visit(TypeNode node) {
+        addChildren(indexes -> last = arena.add(NodeKind.TYPE, 0, indexes[0], AstArena.NONE, AstArena.NONE,
+                arena.addWord(node.type)), node.array);
+    }
+
+    @Override
+    public void visit(ArrayTypeNode node) {
+        addChildren(indexes -> last = arena.add(NodeKind.ARRAY_TYPE, 0, indexes[0], AstArena.NONE,
+                AstArena.NONE, node.size), node.type);
+    }
+
+    @Override
+    public void visit(AssignmentNode node) {
+        addChildren(indexes -> last = arena.add(NodeKind.ASSIGNMENT, node.getLine(), indexes[0], indexes[1],
+                AstArena.NONE, 0), node.left, node.expression);
+    }
+
+    @Override
+    public void visit(IfNode node) {
+        addChildren(indexes -> last = arena.add(NodeKind.IF, 0, indexes[0], indexes[1], indexes[2], 0),
+                node.expression, node.thenStatement, node.elseStatement);
+    }
+
+    @Override
+    public void visit(WhileNode node) {
+        addChildren(indexes -> last = arena.add(NodeKind.WHILE, 0, indexes[0], indexes[1], AstArena.NONE, 0),
+                node.expression, node.body);
+    }
+
+    @Override
+    public void visit(DoWhileNode node) {
+        addChildren(indexes -> last = arena.add(NodeKind.DO_WHILE, 0, indexes[0], indexes[1], AstArena.NONE, 0),
+                node.body, node.expression);
+    }
+
+    @Override
+    public void visit(BreakNode node) {
+        last = arena.add(NodeKind.BREAK, 0, AstArena.NONE, AstArena.NONE, AstArena.NONE, 0);
+    }
+
+    @Override
+    public void visit(LocNode node) {
+        addChildren(indexes -> {
+            last = arena.add(NodeKind.LOC, node.getLine(), indexes[0], AstArena.NONE, AstArena.NONE,
+                    declarations.get(node.id));
+        }, node.array);
+    }
+
+    @Override
+    public void visit(ArrayLocNode node) {
+        addChildren(indexes -> {
+            last = arena.add(NodeKind.ARRAY_LOC, node.getLine(), indexes[0], indexes[1], AstArena.NONE, 0);
+        }, node.expression, node.array);
+    }
+
+    @Override
+    public void visit(BinaryExpressionNode node) {
+        addChildren(indexes -> {
+            last = arena.add(NodeKind.BINARY, node.getLine(), indexes[0], indexes[1], AstArena.NONE,
+                    node.operator.tag);
+        }, node.left, node.right);
+    }
+
+    @Override
+    public void visit(UnaryNode node) {
+        addChildren(indexes -> {
+            last = arena.add(NodeKind.UNARY, node.getLine(), indexes[0], AstArena.NONE, AstArena.NONE,
+                    node.operator.tag);
+        }, node.expression);
+    }
+
+    @Override
+    public void visit(ParenthesisNode node) {
+        addChildren(indexes -> {
+            last = arena.add(NodeKind.PARENTHESIS, 0, indexes[0], AstArena.NONE, AstArena.NONE, 0);
+        }, node.expression);
+    }
+
+    @Override
+    public void visit(NumNode node) {
+        last = arena.add(NodeKind.NUM, 0, AstArena.NONE, AstArena.NONE, AstArena.NONE, node.num);
+    }
+
+    @Override
+    public void visit(RealNode node) {
+        last = arena.add(NodeKind.REAL, 0, AstArena.NONE, AstArena.NONE, AstArena.NONE,
+                Float.floatToRawIntBits(node.value));
+    }
+
+    @Override
+    public void visit(TrueNode node) {
+        last = arena.add(NodeKind.TRUE, 0, AstArena.NONE, AstArena.NONE, AstArena.NONE, 0);
+    }
+
+    @Override
+    public void visit(FalseNode node) {
+        last = arena.add(NodeKind.FALSE, 0, AstArena.NONE, AstArena.NONE, AstArena.NONE, 0);
+    }
+}
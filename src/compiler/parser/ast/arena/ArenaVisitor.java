@@ -0,0 +1,28 @@
+package compiler.parser.ast.arena;
+
+/**
+ * A visitor for the nodes of an AstArena, where each node is given by its index.
+ *
+ * This is the flat counterpart of ASTVisitor. AstArena.accept() calls the method for the kind of the node,
+ * and the visitor reads the children and payload of the node from the arena.
+ */
+public interface ArenaVisitor {
+    default void visitBlock(int node){}
+    default void visitDecl(int node){}
+    default void visitType(int node){}
+    default void visitArrayType(int node){}
+    default void visitAssignment(int node){}
+    default void visitIf(int node){}
+    default void visitWhile(int node){}
+    default void visitDoWhile(int node){}
+    default void visitBreak(int node){}
+    default void visitLoc(int node){}
+    default void visitArrayLoc(int node){}
+    default void visitBinary(int node){}
+    default void visitUnary(int node){}
+    default void visitParenthesis(int node){}
+    default void visitNum(int node){}
+    default void visitReal(int node){}
+    default void visitTrue(int node){}
+    default void visitFalse(int node){}
+}
@@ -0,0 +1,671 @@
+package compiler.parser.ast.arena;
+
+import compiler.lexer.NameTable;
+import compiler.lexer.tokens.Type;
+import compiler.lexer.tokens.Word;
+import compiler.parser.ast.nodes.declarations.TypeTable;
+import compiler.parser.ast.nodes.expressions.operations.Operator;
+import compiler.parser.ast.nodes.terminals.IdNode;
+import compiler.symbols.Symbol;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A flat AST, where every node is stored as an index into parallel int arrays instead of as an object.
+ *
+ * Each node has a kind from NodeKind, a line number, up to three children, a link to its next sibling, and a
+ * payload, whose meanings depend on the kind. Children and siblings are the indexes of other nodes, and the
+ * declarations and statements of a block are linked lists through the sibling links. Identifiers and basic
+ * types are stored once in a table of words, and nodes refer to them by their index in it.
+ *
+ * Once the program is type checked, expressions also store their basic type, and declarations store whether
+ * the type checker resolved their identifier, so the types do not have to be checked again after loading.
+ *
+ * The parser creates node objects, which ProgramNode.flatten() copies into an arena with ArenaBuilder and then
+ * releases. The type checker, the intermediate code generator, and the passes that share expressions and lay out
+ * the frame all walk the arena by index, with the getters or with an ArenaVisitor through accept(). A node takes
+ * 29 bytes, and a whole AST is a handful of arrays that are walked in the order they were filled, so it uses much
+ * less memory than the node objects, and it is released all at once. Each declaration also has a Symbol, which is
+ * kept beside the arrays, so the intermediate code can refer to its variable.
+ *
+ * An arena can be encoded into a compact binary form and decoded again, which is how ASTs are cached on disk.
+ * The form is a header followed by the table of words and each array of the arena in turn, so decoding is a
+ * bulk copy of each array out of the buffer, and the buffer can be a memory-mapped file.
+ */
+public class AstArena {
+    // Index used for a missing child or sibling.
+    public static final int NONE = -1;
+    // Start of the binary form, and its version, which changes whenever the form or the node kinds change.
+    private static final int MAGIC = 0x41535431; // "AST1"
+    private static final int FORMAT_VERSION = 1;
+    // Bytes each node takes in the binary form: a byte for its kind and its type, and an int for each other array.
+    private static final int ENCODED_NODE_BYTES = 2 + 6 * Integer.BYTES;
+    // Basic types in the order of their type codes, which start at 1 so that 0 means no type.
+    private static final Type[] BASIC_TYPES = {Type.Int, Type.Float, Type.Char, Type.Bool};
+    // Roles for a child that can be any statement or any expression, as opposed to a single kind of node.
+    private static final int STATEMENT = -2;
+    private static final int EXPRESSION = -3;
+
+    private int[] kinds = new int[256];
+    private int[] lines = new int[256];
+    private int[] firsts = new int[256];
+    private int[] seconds = new int[256];
+    private int[] thirds = new int[256];
+    private int[] nexts = new int[256];
+    private int[] payloads = new int[256];
+    private byte[] types = new byte[256];
+    private int size = 0;
+
+    private final List<Word> words = new ArrayList<>();
+    private int root = NONE;
+    // The symbol of each declaration, by the index of the declaration, which is not part of the binary form.
+    private Symbol[] symbols = null;
+    // Canonical array types of the symbols created from the declarations of a decoded arena.
+    private TypeTable symbolTypes = null;
+
+    /**
+     * Add a node to the end of the arena, with no next sibling.
+     *
+     * @param kind the kind of the node from NodeKind.
+     * @param line the line number of the node, or 0 if the kind does not track lines.
+     * @param first the index of the first child, or NONE.
+     * @param second the index of the second child, or NONE.
+     * @param third the index of the third child, or NONE.
+     * @param payload the payload of the node.
+     * @return the index of the new node.
+     */
+    public int add(int kind, int line, int first, int second, int third, int payload) {
+        if (size == kinds.length)
+            grow();
+        kinds[size] = kind;
+        lines[size] = line;
+        firsts[size] = first;
+        seconds[size] = second;
+        thirds[size] = third;
+        nexts[size] = NONE;
+        payloads[size] = payload;
+        types[size] = 0;
+        return size++;
+    }
+
+    /**
+     * Double the capacity of every array.
+     */
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        firsts = Arrays.copyOf(firsts, capacity);
+        seconds = Arrays.copyOf(seconds, capacity);
+        thirds = Arrays.copyOf(thirds, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        types = Arrays.copyOf(types, capacity);
+    }
+
+    /**
+     * Add a word to the table of words.
+     *
+     * @param word the identifier or basic type to add.
+     * @return the index of the word in the table.
+     */
+    public int addWord(Word word) {
+        words.add(word);
+        return words.size() - 1;
+    }
+
+    /**
+     * Call the visit method of the visitor for the kind of the given node.
+     *
+     * @param node the index of the node to visit.
+     * @param visitor the visitor to call.
+     */
+    public void accept(int node, ArenaVisitor visitor) {
+        switch (kinds[node]) {
+            case NodeKind.BLOCK -> visitor.visitBlock(node);
+            case NodeKind.DECL -> visitor.visitDecl(node);
+            case NodeKind.TYPE -> visitor.visitType(node);
+            case NodeKind.ARRAY_TYPE -> visitor.visitArrayType(node);
+            case NodeKind.ASSIGNMENT -> visitor.visitAssignment(node);
+            case NodeKind.IF -> visitor.visitIf(node);
+            case NodeKind.WHILE -> visitor.visitWhile(node);
+            case NodeKind.DO_WHILE -> visitor.visitDoWhile(node);
+            case NodeKind.BREAK -> visitor.visitBreak(node);
+            case NodeKind.LOC -> visitor.visitLoc(node);
+            case NodeKind.ARRAY_LOC -> visitor.visitArrayLoc(node);
+            case NodeKind.BINARY -> visitor.visitBinary(node);
+            case NodeKind.UNARY -> visitor.visitUnary(node);
+            case NodeKind.PARENTHESIS -> visitor.visitParenthesis(node);
+            case NodeKind.NUM -> visitor.visitNum(node);
+            case NodeKind.REAL -> visitor.visitReal(node);
+            case NodeKind.TRUE -> visitor.visitTrue(node);
+            case NodeKind.FALSE -> visitor.visitFalse(node);
+            default -> throw new IllegalStateException("Unknown node kind: " + kinds[node]);
+        }
+    }
+
+    /**
+     * Get the number of nodes in the arena.
+     *
+     * @return the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the index of the block of the program.
+     *
+     * @return the index of the root block, or NONE if the arena is empty.
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * Set the index of the block of the program.
+     *
+     * @param root the index of the root block.
+     */
+    public void setRoot(int root) {
+        this.root = root;
+    }
+
+    /**
+     * Get the kind of the given node.
+     *
+     * @param node the index of the node.
+     * @return the kind of the node from NodeKind.
+     */
+    public int getKind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * Get the line number of the given node.
+     *
+     * @param node the index of the node.
+     * @return the line number of the node.
+     */
+    public int getLine(int node) {
+        return lines[node];
+    }
+
+    /**
+     * Get the first child of the given node.
+     *
+     * @param node the index of the node.
+     * @return the index of the first child, or NONE.
+     */
+    public int getFirst(int node) {
+        return firsts[node];
+    }
+
+    /**
+     * Get the second child of the given node.
+     *
+     * @param node the index of the node.
+     * @return the index of the second child, or NONE.
+     */
+    public int getSecond(int node) {
+        return seconds[node];
+    }
+
+    /**
+     * Get the third child of the given node.
+     *
+     * @param node the index of the node.
+     * @return the index of the third child, or NONE.
+     */
+    public int getThird(int node) {
+        return thirds[node];
+    }
+
+    /**
+     * Get the next sibling of the given node in the list of declarations or statements it is in.
+     *
+     * @param node the index of the node.
+     * @return the index of the next sibling, or NONE if it is the last one.
+     */
+    public int getNext(int node) {
+        return nexts[node];
+    }
+
+    /**
+     * Set the next sibling of the given node.
+     *
+     * @param node the index of the node.
+     * @param next the index of the next sibling.
+     */
+    public void setNext(int node, int next) {
+        nexts[node] = next;
+    }
+
+    /**
+     * Get the payload of the given node.
+     *
+     * @param node the index of the node.
+     * @return the payload of the node.
+     */
+    public int getPayload(int node) {
+        return payloads[node];
+    }
+
+    /**
+     * Get a word from the table of words.
+     *
+     * @param index the index of the word.
+     * @return the identifier or basic type.
+     */
+    public Word getWord(int index) {
+        return words.get(index);
+    }
+
+    /**
+     * Get the symbol of a declaration, which holds its identifier and the type it declares.
+     *
+     * An arena filled by ArenaBuilder has the symbols the parser created. The symbol of a declaration of a
+     * decoded arena is created from its nodes the first time it is asked for, and then kept, so every location
+     * that refers to the declaration gets the same symbol.
+     *
+     * @param decl the index of the declaration node.
+     * @return the symbol of the declaration.
+     */
+    public Symbol getSymbol(int decl) {
+        if (symbols == null || decl >= symbols.length)
+            symbols = symbols == null ? new Symbol[kinds.length] : Arrays.copyOf(symbols, kinds.length);
+        Symbol symbol = symbols[decl];
+        if (symbol != null)
+            return symbol;
+
+        int type = firsts[decl];
+        int depth = 0;
+        for (int dimension = firsts[type]; dimension != NONE; dimension = firsts[dimension])
+            depth++;
+        int[] sizes = new int[depth];
+        int dimension = firsts[type];
+        for (int i = 0; i < depth; i++, dimension = firsts[dimension])
+            sizes[i] = payloads[dimension];
+        if (symbolTypes == null)
+            symbolTypes = new TypeTable();
+
+        Word word = words.get(payloads[decl]);
+        IdNode id = new IdNode(word, word.lexeme);
+        symbol = new Symbol(symbolTypes.of((Type) words.get(payloads[type]), sizes), id);
+        id.symbol = symbol;
+        symbols[decl] = symbol;
+        return symbol;
+    }
+
+    /**
+     * Set the symbol of a declaration, to the one the parser created for it.
+     *
+     * @param decl the index of the declaration node.
+     * @param symbol the symbol of the declaration.
+     */
+    void setSymbol(int decl, Symbol symbol) {
+        if (symbols == null || decl >= symbols.length)
+            symbols = symbols == null ? new Symbol[kinds.length] : Arrays.copyOf(symbols, kinds.length);
+        symbols[decl] = symbol;
+    }
+
+    /**
+     * Set the type of the given node, as found by the type checker.
+     *
+     * For an expression this is its basic type. For a declaration it is the basic type of the declared variable,
+     * which marks that the type checker gave the identifier its type.
+     *
+     * @param node the index of the node.
+     * @param type the basic type, or null if the node has no type.
+     */
+    public void setType(int node, Type type) {
+        types[node] = typeCode(type);
+    }
+
+    /**
+     * Get the type of the given node, as found by the type checker.
+     *
+     * @param node the index of the node.
+     * @return the basic type, or null if the node has no type.
+     */
+    public Type getType(int node) {
+        int code = types[node];
+        return code == 0 ? null : BASIC_TYPES[code - 1];
+    }
+
+    /**
+     * Get the code a basic type is stored as.
+     *
+     * @param type the basic type, or null.
+     * @return the index of the type in BASIC_TYPES plus one, or 0 if it is null.
+     */
+    private static byte typeCode(Type type) {
+        for (int i = 0; i < BASIC_TYPES.length; i++)
+            if (BASIC_TYPES[i] == type)
+                return (byte) (i + 1);
+        return 0;
+    }
+
+    /**
+     * Get the number of bytes the binary form of this arena takes.
+     *
+     * @return the size of the binary form in bytes.
+     */
+    public int encodedSize() {
+        int size = 5 * Integer.BYTES + this.size * ENCODED_NODE_BYTES;
+        for (Word word : words)
+            size += 1 + (word instanceof Type ? 0 : Integer.BYTES + word.lexeme.length());
+        return size;
+    }
+
+    /**
+     * Write the binary form of this arena into the given buffer, starting at its position.
+     *
+     * Each word is written as its type code, or 0 for an identifier followed by its length and characters.
+     * Kinds and types are written as single bytes, and every other array as ints.
+     *
+     * @param buffer the buffer to write to, with at least encodedSize() bytes remaining.
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(size).putInt(root).putInt(words.size());
+        for (Word word : words) {
+            if (word instanceof Type type) {
+                buffer.put(typeCode(type));
+            } else {
+                byte[] lexeme = word.lexeme.getBytes(StandardCharsets.ISO_8859_1);
+                buffer.put((byte) 0).putInt(lexeme.length).put(lexeme);
+            }
+        }
+        for (int i = 0; i < size; i++)
+            buffer.put((byte) kinds[i]);
+        buffer.put(types, 0, size);
+        for (int[] array : new int[][]{lines, firsts, seconds, thirds, nexts, payloads}) {
+            buffer.asIntBuffer().put(array, 0, size);
+            buffer.position(buffer.position() + size * Integer.BYTES);
+        }
+    }
+
+    /**
+     * Read an arena from its binary form, starting at the position of the buffer.
+     *
+     * Identifiers are interned into the given name table, so every node refers to the canonical Word of its name.
+     *
+     * The buffer may hold anything, such as a cache entry that was damaged on disk, so every count is checked
+     * against the bytes left in the buffer before anything is allocated for it, and every node is checked with
+     * isWellFormed() before the arena is returned.
+     *
+     * @param buffer the buffer holding the binary form, which is read from its position.
+     * @param names the table to intern identifiers into.
+     * @return the arena, or null if the buffer does not hold a well formed arena of this format version.
+     */
+    public static AstArena decode(ByteBuffer buffer, NameTable names) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+                return null;
+            int size = buffer.getInt();
+            int root = buffer.getInt();
+            int wordCount = buffer.getInt();
+            if (size < 0 || wordCount < 0 || root < NONE || root >= size)
+                return null;
+            // Every word takes at least a byte, and every node a fixed number of bytes.
+            if (wordCount > buffer.remaining() || size > buffer.remaining() / ENCODED_NODE_BYTES)
+                return null;
+
+            AstArena arena = new AstArena();
+            arena.root = root;
+            for (int i = 0; i < wordCount; i++) {
+                int code = buffer.get();
+                if (code == 0) {
+                    int length = buffer.getInt();
+                    if (length < 0 || length > buffer.remaining())
+                        return null;
+                    byte[] lexeme = new byte[length];
+                    buffer.get(lexeme);
+                    arena.words.add(names.intern(new String(lexeme, StandardCharsets.ISO_8859_1)));
+                } else if (code > 0 && code <= BASIC_TYPES.length) {
+                    arena.words.add(BASIC_TYPES[code - 1]);
+                } else {
+                    return null;
+                }
+            }
+
+            int capacity = Math.max(size, 1);
+            arena.kinds = new int[capacity];
+            for (int i = 0; i < size; i++)
+                arena.kinds[i] = buffer.get();
+            arena.types = new byte[capacity];
+            buffer.get(arena.types, 0, size);
+            arena.lines = readInts(buffer, size, capacity);
+            arena.firsts = readInts(buffer, size, capacity);
+            arena.seconds = readInts(buffer, size, capacity);
+            arena.thirds = readInts(buffer, size, capacity);
+            arena.nexts = readInts(buffer, size, capacity);
+            arena.payloads = readInts(buffer, size, capacity);
+            arena.size = size;
+            return arena.isWellFormed() ? arena : null;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // The buffer was cut short, or claims more than it holds.
+            return null;
+        }
+    }
+
+    /**
+     * Check that every node of a decoded arena is one ArenaBuilder could have added, and that the nodes fit
+     * together into a program the passes that walk the arena can handle.
+     *
+     * Every kind and type code must be known, and every word must be of the right sort. Children are added
+     * before their parents and siblings after each other, so every child must come before its node, and every
+     * next sibling after it. A location must refer to a declaration, and an operation to an operator.
+     *
+     * @return true if every node is well formed, false otherwise.
+     */
+    private boolean isWellFormed() {
+        for (int node = 0; node < size; node++) {
+            int kind = kinds[node];
+            if (kind < NodeKind.BLOCK || kind > NodeKind.FALSE || types[node] < 0 || types[node] > BASIC_TYPES.length)
+                return false;
+            for (int child : new int[]{firsts[node], seconds[node], thirds[node]})
+                if (child < NONE || child >= node)
+                    return false;
+            if (nexts[node] != NONE && (nexts[node] <= node || nexts[node] >= size))
+                return false;
+
+            int payload = payloads[node];
+            boolean valid = switch (kind) {
+                case NodeKind.DECL -> payload >= 0 && payload < words.size() && !(words.get(payload) instanceof Type);
+                case NodeKind.TYPE -> payload >= 0 && payload < words.size() && words.get(payload) instanceof Type;
+                case NodeKind.ARRAY_TYPE -> payload >= 0;
+                case NodeKind.LOC -> payload >= 0 && payload < size && kinds[payload] == NodeKind.DECL;
+                case NodeKind.BINARY -> Operator.binary(payload) != null;
+                case NodeKind.UNARY -> Operator.unary(payload) != null;
+                default -> true;
+            };
+            if (!valid)
+                return false;
+        }
+        return root == NONE || isProgram();
+    }
+
+    /**
+     * Check that the nodes reachable from the root form the tree of a program.
+     *
+     * The nodes are walked in the order the program is written: each node before its children, and the
+     * declarations of a block before its statements. Every child must be of a kind its parent can hold, and no
+     * node may be reached twice. Only the declarations and statements of a block are linked as siblings, and a
+     * location must refer to a declaration that has already been walked, as every declaration in its scope is.
+     * Declared types are not walked on their own, as getSymbol() reads them into a TypeNode, so their
+     * dimensions are checked here along with the size of the whole type.
+     *
+     * @return true if the nodes form a program, false otherwise.
+     */
+    private boolean isProgram() {
+        boolean[] walked = new boolean[size];
+        Pending pending = new Pending();
+        if (!pending.child(root, NodeKind.BLOCK, true))
+            return false;
+        while (pending.count > 0) {
+            int role = pending.items[--pending.count];
+            int node = pending.items[--pending.count];
+            if (walked[node] || !fills(kinds[node], role))
+                return false;
+            walked[node] = true;
+
+            // Children are pushed last to first, so they are walked first to last.
+            int first = firsts[node], second = seconds[node], third = thirds[node];
+            boolean valid = switch (kinds[node]) {
+                case NodeKind.BLOCK -> {
+                    pending.list(second, STATEMENT);
+                    pending.list(first, NodeKind.DECL);
+                    yield third == NONE;
+                }
+                case NodeKind.DECL -> second == NONE && third == NONE && isDeclaredType(first, walked);
+                case NodeKind.ASSIGNMENT -> third == NONE && pending.child(second, EXPRESSION, true)
+                        && pending.child(first, NodeKind.LOC, true);
+                case NodeKind.IF -> pending.child(third, STATEMENT, false)
+                        && pending.child(second, STATEMENT, true) && pending.child(first, EXPRESSION, true);
+                case NodeKind.WHILE -> third == NONE && pending.child(second, STATEMENT, true)
+                        && pending.child(first, EXPRESSION, true);
+                case NodeKind.DO_WHILE -> third == NONE && pending.child(second, EXPRESSION, true)
+                        && pending.child(first, STATEMENT, true);
+                case NodeKind.LOC -> second == NONE && third == NONE && walked[payloads[node]]
+                        && pending.child(first, NodeKind.ARRAY_LOC, false);
+                case NodeKind.ARRAY_LOC -> third == NONE && pending.child(second, NodeKind.ARRAY_LOC, false)
+                        && pending.child(first, EXPRESSION, true);
+                case NodeKind.BINARY -> third == NONE && pending.child(second, EXPRESSION, true)
+                        && pending.child(first, EXPRESSION, true);
+                case NodeKind.UNARY, NodeKind.PARENTHESIS -> second == NONE && third == NONE
+                        && pending.child(first, EXPRESSION, true);
+                default -> first == NONE && second == NONE && third == NONE;
+            };
+            if (!valid)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a node of the given kind can be where a node of the given role is expected.
+     *
+     * @param kind the kind of the node.
+     * @param role STATEMENT, EXPRESSION, or the one kind that is expected.
+     * @return true if the node fits, false otherwise.
+     */
+    private static boolean fills(int kind, int role) {
+        if (role == STATEMENT)
+            return kind == NodeKind.BLOCK || (kind >= NodeKind.ASSIGNMENT && kind <= NodeKind.BREAK);
+        if (role == EXPRESSION)
+            return kind == NodeKind.LOC || kind >= NodeKind.BINARY;
+        return kind == role;
+    }
+
+    /**
+     * Check the type of a declaration, and mark its nodes as walked.
+     *
+     * The type must be a TYPE node followed by a chain of ARRAY_TYPE nodes, and the number of bytes it takes
+     * must fit in an int, which is worked out in the same order as TypeNode does, innermost dimension first.
+     *
+     * @param type the index of the TYPE node, or NONE.
+     * @param walked whether each node has been walked.
+     * @return true if the type is well formed, false otherwise.
+     */
+    private boolean isDeclaredType(int type, boolean[] walked) {
+        if (type == NONE || kinds[type] != NodeKind.TYPE || walked[type] || nexts[type] != NONE)
+            return false;
+        walked[type] = true;
+        int depth = 0;
+        for (int dimension = firsts[type]; dimension != NONE; dimension = firsts[dimension], depth++) {
+            if (kinds[dimension] != NodeKind.ARRAY_TYPE || walked[dimension] || nexts[dimension] != NONE)
+                return false;
+            walked[dimension] = true;
+        }
+        if (seconds[type] != NONE || thirds[type] != NONE)
+            return false;
+
+        int[] sizes = new int[depth];
+        int dimension = firsts[type];
+        for (int i = 0; i < depth; i++, dimension = firsts[dimension]) {
+            if (seconds[dimension] != NONE || thirds[dimension] != NONE)
+                return false;
+            sizes[i] = payloads[dimension];
+        }
+        long elements = 1;
+        for (int i = depth - 1; i >= 0; i--)
+            if ((elements *= sizes[i]) > Integer.MAX_VALUE)
+                return false;
+        return elements * ((Type) words.get(payloads[type])).width <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * The nodes isProgram() has yet to walk, each as a pair of its index and the role it must fill.
+     */
+    private final class Pending {
+        private int[] items = new int[32];
+        private int count = 0;
+
+        /**
+         * Push a child of a node that is not in a list of siblings.
+         *
+         * @param child the index of the child, or NONE.
+         * @param role the role the child must fill.
+         * @param required whether the child must be there.
+         * @return false if the child is missing but required, or has a next sibling, and true otherwise.
+         */
+        boolean child(int child, int role, boolean required) {
+            if (child == NONE)
+                return !required;
+            if (nexts[child] != NONE)
+                return false;
+            push(child, role);
+            return true;
+        }
+
+        /**
+         * Push every node of a list of siblings, so that they are walked first to last.
+         *
+         * Every next sibling comes after its node, so the list always ends.
+         *
+         * @param head the index of the first node of the list, or NONE.
+         * @param role the role every node of the list must fill.
+         */
+        void list(int head, int role) {
+            int start = count;
+            for (int node = head; node != NONE; node = nexts[node])
+                push(node, role);
+            // Reverse the pairs that were pushed.
+            for (int i = start, j = count - 2; i < j; i += 2, j -= 2) {
+                int node = items[i], nodeRole = items[i + 1];
+                items[i] = items[j];
+                items[i + 1] = items[j + 1];
+                items[j] = node;
+                items[j + 1] = nodeRole;
+            }
+        }
+
+        private void push(int node, int role) {
+            if (count + 2 > items.length)
+                items = Arrays.copyOf(items, items.length * 2);
+            items[count++] = node;
+            items[count++] = role;
+        }
+    }
+
+    /**
+     * Read an array of ints from the buffer, and move the buffer past them.
+     *
+     * @param buffer the buffer to read from.
+     * @param count the number of ints to read.
+     * @param capacity the length of the array to read them into, at least count.
+     * @return the array holding the ints.
+     */
+    private static int[] readInts(ByteBuffer buffer, int count, int capacity) {
+        int[] array = new int[capacity];
+        buffer.asIntBuffer().get(array, 0, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return array;
+    }
+}
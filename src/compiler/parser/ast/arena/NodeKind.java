@@ -0,0 +1,29 @@
+package compiler.parser.ast.arena;
+
+/**
+ * Represents the kinds of nodes stored in an AstArena.
+ *
+ * Each kind matches one of the node classes the parser creates. The comment after each kind describes what
+ * its first, second, and third children and its payload hold. Unused children are AstArena.NONE.
+ */
+public class NodeKind {
+    public final static int
+    BLOCK = 0,        // first: first declaration, second: first statement.
+    DECL = 1,         // first: type, payload: index of the identifier's word.
+    TYPE = 2,         // first: first array dimension, payload: index of the basic type.
+    ARRAY_TYPE = 3,   // first: next array dimension, payload: size of the dimension.
+    ASSIGNMENT = 4,   // first: loc, second: expression.
+    IF = 5,           // first: expression, second: then statement, third: else statement.
+    WHILE = 6,        // first: expression, second: body.
+    DO_WHILE = 7,     // first: body, second: expression.
+    BREAK = 8,
+    LOC = 9,          // first: first array index, payload: the declaration of the identifier.
+    ARRAY_LOC = 10,   // first: index expression, second: next array index.
+    BINARY = 11,      // first: left, second: right, payload: tag of the operator.
+    UNARY = 12,       // first: expression, payload: tag of the operator.
+    PARENTHESIS = 13, // first: expression.
+    NUM = 14,         // payload: value.
+    REAL = 15,        // payload: float bits of the value.
+    TRUE = 16,
+    FALSE = 17;
+}
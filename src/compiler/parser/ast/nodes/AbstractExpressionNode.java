@@ -0,0 +1,52 @@
+package compiler.parser.ast.nodes;
+
+import compiler.parser.ast.nodes.declarations.TypeNode;
+
+/**
+ * Base class for expression nodes, which stores the type of the expression and the line it was parsed from.
+ *
+ * The type is set by the intermediate code generator, from the type the type checker found. The line is only set for the nodes that implement LineTrackingNode,
+ * which inherit getLine() and setLine() from here, and is 0 for the other expressions.
+ */
+public abstract class AbstractExpressionNode implements ExpressionNode {
+    private TypeNode type; // Set by the intermediate code generator.
+    private int line; // Line the node was parsed from, for error messages.
+
+    /**
+     * Get the type of this expression, set by the intermediate code generator.
+     *
+     * @return the TypeNode of this expression.
+     */
+    @Override
+    public TypeNode getType() {
+        return type;
+    }
+
+    /**
+     * Set the type of this expression.
+     *
+     * @param type the TypeNode of this expression.
+     */
+    @Override
+    public void setType(TypeNode type) {
+        this.type = type;
+    }
+
+    /**
+     * Get the line number this node was parsed from.
+     *
+     * @return the line number this node was parsed from in the source code.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Set the line number this node was parsed from.
+     *
+     * @param line the line number this node was parsed from in the source code.
+     */
+    public void setLine(int line) {
+        this.line = line;
+    }
+}
@@ -4,8 +4,6 @@ import compiler.lexer.tokens.Type;
 import compiler.parser.ast.nodes.declarations.TypeNode;
 import compiler.symbols.Symbol;
 
-import java.util.HashMap;
-
 /**
  * Interface for all nodes that represent expressions.
  *
@@ -13,32 +11,28 @@ import java.util.HashMap;
  * interface provides a way to store and retrieve the type of expression node. The TypeNode it
  * stores allows access to the basic type of the expression, as well as any array dimensions.
  *
- * This interface is important for the type checker. It allows the type checker to get and set the
- * type of each node as it traverses the tree.
+ * The type checker stores the basic type of each expression of the flat AST in its AstArena. The intermediate
+ * code generator then sets the type of each node of the intermediate code it creates through this interface.
  *
- * There are a few overloaded methods for setting the type in order to make it easier to use.
+ * Each expression node stores its own type in a field of AbstractExpressionNode, so getting the type is a
+ * field read and the types of a compilation are released with its nodes. There are a few overloaded
+ * methods for setting the type in order to make it easier to use. Types are the canonical TypeNodes, so
+ * storing one allocates nothing.
  */
 public interface ExpressionNode extends Node {
-    // Static lookup table for the TypeNode associated with an ExpressionNode.
-    HashMap<ExpressionNode, TypeNode> typeLookup = new HashMap<>();
-
     /**
      * Get the type of this expression node.
      *
      * @return the TypeNode associated with this expression node.
      */
-    default TypeNode getType() {
-        return typeLookup.get(this);
-    }
+    TypeNode getType();
 
     /**
      * Set the type of this expression node.
      *
      * @param type the TypeNode to associate with this expression node.
      */
-    default void setType(TypeNode type) {
-        typeLookup.put(this, type);
-    }
+    void setType(TypeNode type);
 
     /**
      * Set the type of this expression node.
@@ -46,7 +40,7 @@ public interface ExpressionNode extends Node {
      * @param type Basic type of the expression.
      */
     default void setType(Type type) {
-        typeLookup.put(this, new TypeNode(type));
+        setType(TypeNode.of(type));
     }
 
     /**
@@ -55,7 +49,7 @@ public interface ExpressionNode extends Node {
      * @param node the ExpressionNode to get the type from.
      */
     default void setType(ExpressionNode node) {
-        typeLookup.put(this, typeLookup.get(node));
+        setType(node.getType());
     }
 
     /**
@@ -64,6 +58,6 @@ public interface ExpressionNode extends Node {
      * @param symbol the Symbol to get the type from.
      */
     default void setType(Symbol symbol) {
-        typeLookup.put(this, symbol.type);
+        setType(symbol.type);
     }
 }
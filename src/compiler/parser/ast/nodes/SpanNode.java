@@ -0,0 +1,40 @@
+package compiler.parser.ast.nodes;
+
+/**
+ * Interface for statement nodes which allows them to store the tokens they were parsed from.
+ *
+ * This is used by the parser to find the smallest statement an edit to the source is in, so that only that
+ * statement has to be parsed again. The span is stored as the index of the first token of the node, counted
+ * from the first token of the node with a span that encloses it, and the number of tokens it covers. As the
+ * start is relative, an edit only changes the spans of the nodes enclosing it and of the nodes that follow it
+ * within those, and not of every node after it in the file.
+ */
+public interface SpanNode extends Node {
+    /**
+     * Set the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @param start the index of the first token of this node.
+     */
+    void setSpanStart(int start);
+
+    /**
+     * Get the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @return the index of the first token of this node.
+     */
+    int getSpanStart();
+
+    /**
+     * Set the number of tokens this node was parsed from.
+     *
+     * @param width the number of tokens this node was parsed from.
+     */
+    void setSpanWidth(int width);
+
+    /**
+     * Get the number of tokens this node was parsed from.
+     *
+     * @return the number of tokens this node was parsed from.
+     */
+    int getSpanWidth();
+}
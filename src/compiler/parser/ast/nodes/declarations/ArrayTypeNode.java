@@ -2,18 +2,27 @@ package compiler.parser.ast.nodes.declarations;
 
 
 import compiler.parser.ast.ASTVisitor;
-import compiler.parser.ast.nodes.terminals.NumNode;
+import compiler.parser.ast.nodes.DeclarationNode;
 
-public class ArrayTypeNode extends TypeNode {
-    public ArrayTypeNode type;
-    public NumNode size;
+/**
+ * A node that represents a single dimension of an array type.
+ *
+ * The dimensions of a TypeNode are linked together from the outermost to the innermost. They are created with
+ * the TypeNode and are shared with it, so they cannot be changed either.
+ */
+public class ArrayTypeNode implements DeclarationNode {
+    public final int size;
+    public final ArrayTypeNode type; // The next dimension, or null if this is the innermost one.
 
     /**
-     * Creates an empty ArrayTypeNode.
+     * Creates an ArrayTypeNode for a dimension of the given size.
      *
-     * After it is constructed, the type and size fields should be set to the appropriate values.
+     * @param size the declared size of the dimension.
+     * @param type the next dimension, or null if this is the innermost one.
      */
-    public ArrayTypeNode() {
+    ArrayTypeNode(int size, ArrayTypeNode type) {
+        this.size = size;
+        this.type = type;
     }
 
     /**
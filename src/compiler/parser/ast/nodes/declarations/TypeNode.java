@@ -3,33 +3,80 @@ package compiler.parser.ast.nodes.declarations;
 import compiler.lexer.tokens.Type;
 import compiler.parser.ast.ASTVisitor;
 import compiler.parser.ast.nodes.DeclarationNode;
-import compiler.parser.ast.nodes.terminals.NumNode;
 
 /**
  * A node that represents a type declaration.
  *
  * Type nodes are used to represent the type of variable and hold information about its
  * array dimensions. (e.g. int[3][5] would have a depth of 2 and a size of 3 and 5 for the respective dimensions)
+ *
+ * Type nodes are canonical, so two types are the same exactly when they are the same object. The basic types
+ * each have a single node, from of(), and the array types of a compilation are interned by its TypeTable, so
+ * setting the type of an expression allocates nothing. A node cannot be changed once it is created, since it
+ * is shared by every declaration and expression of its type.
+ *
+ * A node keeps its dimension sizes in an array, so it does not walk its ArrayTypeNode chain to find them. The
+ * stride of each dimension and the number of bytes the type takes are worked out once, when the node is
+ * created, so code generation never multiplies the dimension sizes for an array access. A type whose size
+ * does not fit in an int cannot be created, which is how a declaration of a huge array is found.
  */
 public class TypeNode implements DeclarationNode {
-    public Type type;
-    public ArrayTypeNode array = null;
+    private static final TypeNode INT = new TypeNode(Type.Int, new int[0]);
+    private static final TypeNode FLOAT = new TypeNode(Type.Float, new int[0]);
+    private static final TypeNode CHAR = new TypeNode(Type.Char, new int[0]);
+    private static final TypeNode BOOL = new TypeNode(Type.Bool, new int[0]);
+
+    public final Type type;
+    public final ArrayTypeNode array;
+    // Size of each dimension, outermost first.
+    private final int[] sizes;
+    // Number of elements between consecutive indexes of each dimension, and the bytes the whole type takes.
+    private final int[] strides;
+    private final int byteSize;
 
     /**
-     * Creates an empty TypeNode.
+     * Creates a TypeNode with the given basic type and dimensions.
      *
-     * After constructed, the type and array fields should be set to the appropriate values.
+     * This is only called for the basic types and by a TypeTable, which makes sure the node is canonical.
+     *
+     * @param type Basic type of the variable. (e.g. int, float, char, etc.)
+     * @param sizes Size of each dimension, outermost first, which must not be changed afterwards.
+     * @throws ArithmeticException If the number of bytes the type takes does not fit in an int.
      */
-    public TypeNode() {
+    TypeNode(Type type, int[] sizes) {
+        this.type = type;
+        this.sizes = sizes;
+        strides = new int[sizes.length];
+        int elements = 1;
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            strides[i] = elements;
+            elements = Math.multiplyExact(elements, sizes[i]);
+        }
+        byteSize = Math.multiplyExact(elements, type.width);
+
+        // Build the dimensions innermost first, so each one can link to the next.
+        ArrayTypeNode dimension = null;
+        for (int i = sizes.length - 1; i >= 0; i--)
+            dimension = new ArrayTypeNode(sizes[i], dimension);
+        array = dimension;
     }
 
     /**
-     * Creates a TypeNode with the given type.
+     * Get the canonical node of a basic type.
      *
-     * @param type Basic type of the variable. (e.g. int, float, char, etc.)
+     * @param type Basic type. (e.g. int, float, char, etc.)
+     * @return the single node of the type.
      */
-    public TypeNode(Type type) {
-        this.type = type;
+    public static TypeNode of(Type type) {
+        if (type == Type.Int)
+            return INT;
+        else if (type == Type.Float)
+            return FLOAT;
+        else if (type == Type.Char)
+            return CHAR;
+        else if (type == Type.Bool)
+            return BOOL;
+        throw new IllegalArgumentException("Not a basic type: " + type);
     }
 
     /**
@@ -49,10 +96,7 @@ public class TypeNode implements DeclarationNode {
      * @return the depth of the array.
      */
     public int getDepth() {
-        int depth = 0;
-        for (ArrayTypeNode current = array; current != null; current = current.type)
-            depth++;
-        return depth;
+        return sizes.length;
     }
 
     /**
@@ -63,11 +107,33 @@ public class TypeNode implements DeclarationNode {
      * @param dimension the index of the dimension to get the size of.
      * @return the size of the array at the given dimension.
      */
-    public NumNode getDimensionSize(int dimension) {
-        ArrayTypeNode current = array;
-        for (int i = 0; i < dimension; i++)
-            current = current.type;
-        return current.size;
+    public int getDimensionSize(int dimension) {
+        return sizes[dimension];
+    }
+
+    /**
+     * Get the stride of the array at the given dimension, which is the number of elements between an index of
+     * that dimension and the next.
+     *
+     * For example, 'int[3][5][7]' would return 35 for dimension = 0, 7 for dimension = 1, and 1 for dimension = 2.
+     *
+     * @param dimension the index of the dimension to get the stride of.
+     * @return the stride of the array at the given dimension.
+     */
+    public int getStride(int dimension) {
+        return strides[dimension];
+    }
+
+    /**
+     * Get the number of bytes a variable of this type takes, which is the width of the basic type times the
+     * number of elements.
+     *
+     * For example, 'int[3][5]' would return 4 * 15 = 60.
+     *
+     * @return the size of the type in bytes.
+     */
+    public int getByteSize() {
+        return byteSize;
     }
 
     /**
@@ -0,0 +1,76 @@
+package compiler.parser.ast.nodes.declarations;
+
+import compiler.lexer.tokens.Type;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the array types of a compilation, so each one has a single canonical TypeNode.
+ *
+ * The basic types have a single node each, shared by every compilation. Array types depend on the sizes a
+ * program declares, so each compilation interns its own in a table, which is released with the parser or
+ * AstArena that owns it. The declarations of separate blocks may be parsed on several threads at once, so a
+ * table can be used from several threads.
+ *
+ * Example:
+ *  the declarations "int[3][5] a; int[3][5] b;" both get the same TypeNode, and "int[5][3] c;" gets another.
+ */
+public class TypeTable {
+    /**
+     * What makes two array types the same: their basic type and the size of each dimension.
+     */
+    private static final class Shape {
+        private final Type type;
+        private final int[] sizes;
+        private final int hash;
+
+        Shape(Type type, int[] sizes) {
+            this.type = type;
+            this.sizes = sizes;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(sizes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Shape shape && shape.type == type && Arrays.equals(shape.sizes, sizes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // The canonical node of each array type seen so far.
+    private final Map<Shape, TypeNode> arrays = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty table.
+     */
+    public TypeTable() {
+    }
+
+    /**
+     * Get the canonical node of an array type, or of a basic type if there are no dimensions.
+     *
+     * @param type Basic type of the elements.
+     * @param sizes Size of each dimension, outermost first.
+     * @return the single node of the type in this compilation.
+     * @throws ArithmeticException If the number of bytes the type takes does not fit in an int.
+     */
+    public TypeNode of(Type type, int... sizes) {
+        if (sizes.length == 0)
+            return TypeNode.of(type);
+        TypeNode node = arrays.get(new Shape(type, sizes));
+        if (node != null)
+            return node;
+
+        // The stored node keeps its own copy of the sizes, so the caller can reuse the array.
+        int[] copy = sizes.clone();
+        node = new TypeNode(type, copy);
+        TypeNode existing = arrays.putIfAbsent(new Shape(type, copy), node);
+        return existing == null ? node : existing;
+    }
+}
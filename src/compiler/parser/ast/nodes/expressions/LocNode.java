@@ -1,7 +1,7 @@
 package compiler.parser.ast.nodes.expressions;
 
 import compiler.parser.ast.ASTVisitor;
-import compiler.parser.ast.nodes.ExpressionNode;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.LineTrackingNode;
 import compiler.parser.ast.nodes.terminals.IdNode;
 import compiler.parser.ast.nodes.terminals.NumNode;
@@ -17,7 +17,7 @@ import compiler.parser.ast.nodes.terminals.NumNode;
  *
  * Example: x or x[3][5]
  */
-public class LocNode implements ExpressionNode, LineTrackingNode {
+public class LocNode extends AbstractExpressionNode implements LineTrackingNode {
     public IdNode id;
     public ArrayLocNode array;
 
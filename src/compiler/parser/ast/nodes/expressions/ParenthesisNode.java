@@ -1,6 +1,7 @@
 package compiler.parser.ast.nodes.expressions;
 
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.ExpressionNode;
 
 /**
@@ -8,7 +9,7 @@ import compiler.parser.ast.nodes.ExpressionNode;
  *
  * Example: (x + 3)
  */
-public class ParenthesisNode implements ExpressionNode {
+public class ParenthesisNode extends AbstractExpressionNode {
     public ExpressionNode expression;
 
     /**
@@ -1,6 +1,5 @@
 package compiler.parser.ast.nodes.expressions;
 
-import compiler.lexer.Tag;
 import compiler.lexer.tokens.Word;
 import compiler.parser.ast.ASTVisitor;
 import compiler.parser.ast.nodes.terminals.IdNode;
@@ -16,15 +15,15 @@ import compiler.parser.ast.nodes.terminals.IdNode;
  *   x = 5 + 3 + 4; becomes t1 = 5 + 3; x = t1 + 4; with t1 being a TempNode.
  */
 public class TempNode extends LocNode {
-    // A static counter to give each temporary variable a unique incrementing number
-    // as an identifier (e.g. t1, t2, t3, ...).
-    public static int num = 0;
+    // Slot and byte offset of the variable in the frame, or -1 until they are assigned by the StorageLayout.
+    public int slot = -1;
+    public int offset = -1;
 
     /**
      * Creates a TempNode with the given word and id.
      *
-     * This constructor should not be used directly. Instead, use the static method TempNode.newTemp() to
-     * create a new temporary variable.
+     * This constructor should not be used directly. Instead, use CompilationContext.newTemp() to create a
+     * new temporary variable that is numbered within its compilation.
      *
      * @param word The word representing the temporary variable.
      * @param id The identifier of the temporary variable.
@@ -33,16 +32,6 @@ public class TempNode extends LocNode {
         this.id = new IdNode(word, id);
     }
 
-    /**
-     * Creates a new temporary variable with a unique identifier.
-     *
-     * @return A new TempNode with a unique identifier. (e.g. t1, t2, t3, ...)
-     */
-    public static TempNode newTemp() {
-        num++;
-        return new TempNode(new Word("t" + num, Tag.ID), "t" + num);
-    }
-
     /**
      * Returns the string representation of the temporary variable.
      *
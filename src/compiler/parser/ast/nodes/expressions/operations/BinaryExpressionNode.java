@@ -1,6 +1,7 @@
 package compiler.parser.ast.nodes.expressions.operations;
 
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.ExpressionNode;
 import compiler.parser.ast.nodes.expressions.OperationNode;
 
@@ -10,19 +11,19 @@ import compiler.parser.ast.nodes.expressions.OperationNode;
  * This includes operations math operations and logical operations.
  * Example: 5 + 3, x > y, x == y, etc.
  */
-public class BinaryExpressionNode implements OperationNode {
+public class BinaryExpressionNode extends AbstractExpressionNode implements OperationNode {
     public ExpressionNode left;
     public ExpressionNode right;
-    public String operator;
+    public Operator operator;
 
     /**
      * Creates a BinaryExpressionNode with the given left and right expressions and operator.
      *
      * @param left The left operand.
      * @param right The right operand
-     * @param operator The operator string (e.g. +, -, *, /, >, <, ==, etc.)
+     * @param operator The binary operator (e.g. +, -, *, /, >, <, ==, etc.)
      */
-    public BinaryExpressionNode(ExpressionNode left, ExpressionNode right, String operator) {
+    public BinaryExpressionNode(ExpressionNode left, ExpressionNode right, Operator operator) {
         this.left = left;
         this.right = right;
         this.operator = operator;
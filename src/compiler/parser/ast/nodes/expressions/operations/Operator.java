@@ -0,0 +1,140 @@
+package compiler.parser.ast.nodes.expressions.operations;
+
+import compiler.lexer.Tag;
+
+/**
+ * The operators that can appear in binary and unary expressions.
+ *
+ * Each operator knows its symbol, the tag of the token it is parsed from, and, for binary operators, its
+ * precedence and associativity. Higher precedence operators bind tighter, so multiplication and division are
+ * given higher values than addition and subtraction. The parser finds operators by tag through dense
+ * tables indexed by the tag, so looking one up is an array read.
+ *
+ * The '-' token is both a binary and a unary operator, so it is SUB when it is between two expressions and
+ * NEGATE when it is in front of one.
+ */
+public enum Operator {
+    // Binary operators, from lowest to highest precedence.
+    OR("||", Tag.OR, 6),
+    AND("&&", Tag.AND, 7),
+    EQ("==", Tag.EQ, 8), NE("!=", Tag.NE, 8),
+    LT("<", Tag.LT, 9), LE("<=", Tag.LE, 9), GT(">", Tag.GT, 9), GE(">=", Tag.GE, 9),
+    ADD("+", Tag.ADD, 11), SUB("-", Tag.SUB, 11),
+    MUL("*", Tag.MUL, 12), DIV("/", Tag.DIV, 12),
+
+    // Unary operators, which apply to a single factor.
+    NEGATE("-", Tag.SUB),
+    NOT("!", Tag.NOT);
+
+    /**
+     * The order operators of the same precedence are grouped in.
+     */
+    public enum Associativity {
+        LEFT, // a - b - c is (a - b) - c
+        RIGHT // - - a is -(-a)
+    }
+
+    // Operators by tag, indexed by tag - Tag.NUM.
+    private static final Operator[] BINARY_OPERATORS = new Operator[Tag.EOF - Tag.NUM + 1];
+    private static final Operator[] UNARY_OPERATORS = new Operator[Tag.EOF - Tag.NUM + 1];
+
+    static {
+        for (Operator operator : values()) {
+            if (operator.isUnary())
+                UNARY_OPERATORS[operator.tag - Tag.NUM] = operator;
+            else
+                BINARY_OPERATORS[operator.tag - Tag.NUM] = operator;
+        }
+    }
+
+    public final String symbol;
+    public final int tag;
+    // The precedence of a binary operator, or -1 for a unary operator.
+    public final int precedence;
+    public final Associativity associativity;
+
+    /**
+     * Create a left associative binary operator.
+     *
+     * @param symbol the symbol of the operator.
+     * @param tag the tag of the operator's token.
+     * @param precedence the precedence of the operator.
+     */
+    Operator(String symbol, int tag, int precedence) {
+        this.symbol = symbol;
+        this.tag = tag;
+        this.precedence = precedence;
+        this.associativity = Associativity.LEFT;
+    }
+
+    /**
+     * Create a unary operator.
+     *
+     * @param symbol the symbol of the operator.
+     * @param tag the tag of the operator's token.
+     */
+    Operator(String symbol, int tag) {
+        this.symbol = symbol;
+        this.tag = tag;
+        this.precedence = -1;
+        this.associativity = Associativity.RIGHT;
+    }
+
+    /**
+     * Get the binary operator for a token tag.
+     *
+     * @param tag the tag of the token.
+     * @return the binary operator, or null if the tag is not a binary operator.
+     */
+    public static Operator binary(int tag) {
+        int index = tag - Tag.NUM;
+        if (index < 0 || index >= BINARY_OPERATORS.length)
+            return null;
+        return BINARY_OPERATORS[index];
+    }
+
+    /**
+     * Get the unary operator for a token tag.
+     *
+     * @param tag the tag of the token.
+     * @return the unary operator, or null if the tag is not a unary operator.
+     */
+    public static Operator unary(int tag) {
+        int index = tag - Tag.NUM;
+        if (index < 0 || index >= UNARY_OPERATORS.length)
+            return null;
+        return UNARY_OPERATORS[index];
+    }
+
+    /**
+     * Check if this operator applies to a single expression.
+     *
+     * @return true if this is a unary operator, false if it is a binary operator.
+     */
+    public boolean isUnary() {
+        return precedence < 0;
+    }
+
+    /**
+     * Get the lowest precedence an operator to the right of this one must have to be part of this operator's
+     * right operand.
+     *
+     * For a left associative operator this is one higher than its own precedence, so operators of the same
+     * precedence are grouped from the left.
+     *
+     * @return the minimum precedence for the right operand.
+     */
+    public int getRightPrecedence() {
+        return associativity == Associativity.LEFT ? precedence + 1 : precedence;
+    }
+
+    /**
+     * Returns the symbol of the operator, as it is written in the source code.
+     *
+     * @return the symbol of the operator.
+     */
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
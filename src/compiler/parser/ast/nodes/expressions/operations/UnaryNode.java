@@ -1,7 +1,7 @@
 package compiler.parser.ast.nodes.expressions.operations;
 
-import compiler.lexer.tokens.Token;
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.ExpressionNode;
 import compiler.parser.ast.nodes.expressions.OperationNode;
 
@@ -12,8 +12,8 @@ import compiler.parser.ast.nodes.expressions.OperationNode;
  *
  * Example: -5, !true
  */
-public class UnaryNode implements OperationNode {
-    public Token operator;
+public class UnaryNode extends AbstractExpressionNode implements OperationNode {
+    public Operator operator;
     public ExpressionNode expression;
 
     /**
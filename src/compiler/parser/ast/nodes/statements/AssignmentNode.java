@@ -3,6 +3,7 @@ package compiler.parser.ast.nodes.statements;
 import compiler.parser.ast.ASTVisitor;
 import compiler.parser.ast.nodes.ExpressionNode;
 import compiler.parser.ast.nodes.LineTrackingNode;
+import compiler.parser.ast.nodes.SpanNode;
 import compiler.parser.ast.nodes.StatementNode;
 import compiler.parser.ast.nodes.expressions.LocNode;
 
@@ -11,10 +12,74 @@ import compiler.parser.ast.nodes.expressions.LocNode;
  *
  * Example: x = 5; or x[100] = 3 - x[4];
  */
-public class AssignmentNode implements StatementNode, LineTrackingNode {
+public class AssignmentNode implements StatementNode, SpanNode, LineTrackingNode {
     // left = expression
     public LocNode left;
     public ExpressionNode expression;
+    private int line; // Line the node was parsed from, for error messages.
+    // Tokens the node was parsed from, for parsing it again after an edit.
+    private int spanStart;
+    private int spanWidth;
+
+    /**
+     * Get the line number this node was parsed from.
+     *
+     * @return the line number this node was parsed from in the source code.
+     */
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Set the line number this node was parsed from.
+     *
+     * @param line the line number this node was parsed from in the source code.
+     */
+    @Override
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    /**
+     * Get the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @return the index of the first token of this node.
+     */
+    @Override
+    public int getSpanStart() {
+        return spanStart;
+    }
+
+    /**
+     * Set the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @param start the index of the first token of this node.
+     */
+    @Override
+    public void setSpanStart(int start) {
+        this.spanStart = start;
+    }
+
+    /**
+     * Get the number of tokens this node was parsed from.
+     *
+     * @return the number of tokens this node was parsed from.
+     */
+    @Override
+    public int getSpanWidth() {
+        return spanWidth;
+    }
+
+    /**
+     * Set the number of tokens this node was parsed from.
+     *
+     * @param width the number of tokens this node was parsed from.
+     */
+    @Override
+    public void setSpanWidth(int width) {
+        this.spanWidth = width;
+    }
 
     /**
      * Creates an empty AssignmentNode.
@@ -1,9 +1,9 @@
 package compiler.parser.ast.nodes.statements;
 
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.SpanNode;
 import compiler.parser.ast.nodes.StatementNode;
 import compiler.parser.ast.nodes.declarations.DeclNode;
-import compiler.symbols.SymbolTable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,17 +12,58 @@ import java.util.List;
  * A node representing a block of code.
  *
  * Blocks are enclosed in braces and optionally contain a list of declarations
- * followed by a list of statements. Each block is its own scope and has its own
- * symbol table.
+ * followed by a list of statements. Each block is its own scope, which is opened in
+ * the symbol table while the block is walked.
  */
-public class BlockNode implements StatementNode {
+public class BlockNode implements StatementNode, SpanNode {
     // Declaration of variable: int x; int y;
     public List<DeclNode> decls = new ArrayList<>();
     // Statements within the block: x = 5; y = 3;
     public List<StatementNode> statements = new ArrayList<>();
 
-    // Symbol table stores the declared variables in this block.
-    public SymbolTable table;
+    // Tokens the node was parsed from, for parsing it again after an edit.
+    private int spanStart;
+    private int spanWidth;
+
+    /**
+     * Get the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @return the index of the first token of this node.
+     */
+    @Override
+    public int getSpanStart() {
+        return spanStart;
+    }
+
+    /**
+     * Set the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @param start the index of the first token of this node.
+     */
+    @Override
+    public void setSpanStart(int start) {
+        this.spanStart = start;
+    }
+
+    /**
+     * Get the number of tokens this node was parsed from.
+     *
+     * @return the number of tokens this node was parsed from.
+     */
+    @Override
+    public int getSpanWidth() {
+        return spanWidth;
+    }
+
+    /**
+     * Set the number of tokens this node was parsed from.
+     *
+     * @param width the number of tokens this node was parsed from.
+     */
+    @Override
+    public void setSpanWidth(int width) {
+        this.spanWidth = width;
+    }
 
     /**
      * Creates an empty BlockNode.
@@ -2,6 +2,7 @@ package compiler.parser.ast.nodes.statements;
 
 import compiler.parser.ast.ASTVisitor;
 import compiler.parser.ast.nodes.ExpressionNode;
+import compiler.parser.ast.nodes.SpanNode;
 import compiler.parser.ast.nodes.StatementNode;
 
 /**
@@ -12,10 +13,53 @@ import compiler.parser.ast.nodes.StatementNode;
  *    x = x + 1;
  *  while (x < 10);
  */
-public class DoWhileNode implements StatementNode {
+public class DoWhileNode implements StatementNode, SpanNode {
     // do { body } while (expression);
     public ExpressionNode expression;
     public StatementNode body;
+    // Tokens the node was parsed from, for parsing it again after an edit.
+    private int spanStart;
+    private int spanWidth;
+
+    /**
+     * Get the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @return the index of the first token of this node.
+     */
+    @Override
+    public int getSpanStart() {
+        return spanStart;
+    }
+
+    /**
+     * Set the index of the first token of this node, relative to the first token of its enclosing node.
+     *
+     * @param start the index of the first token of this node.
+     */
+    @Override
+    public void setSpanStart(int start) {
+        this.spanStart = start;
+    }
+
+    /**
+     * Get the number of tokens this node was parsed from.
+     *
+     * @return the number of tokens this node was parsed from.
+     */
+    @Override
+    public int getSpanWidth() {
+        return spanWidth;
+    }
+
+    /**
+     * Set the number of tokens this node was parsed from.
+     *
+     * @param width the number of tokens this node was parsed from.
+     */
+    @Override
+    public void setSpanWidth(int width) {
+        this.spanWidth = width;
+    }
 
     /**
      * Creates an empty DoWhileNode.
@@ -1,6 +1,8 @@
 package compiler.parser.ast.nodes.structures;
 
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.arena.ArenaBuilder;
+import compiler.parser.ast.arena.AstArena;
 import compiler.parser.ast.nodes.Node;
 import compiler.parser.ast.nodes.statements.BlockNode;
 
@@ -10,6 +12,8 @@ import compiler.parser.ast.nodes.statements.BlockNode;
 public class ProgramNode implements Node {
     // { block }
     public BlockNode block;
+    // The same AST stored flat, once the program has been flattened for the passes after parsing.
+    public AstArena arena = null;
 
     /**
      * Creates an empty ProgramNode.
@@ -18,6 +22,16 @@ public class ProgramNode implements Node {
      */
     public ProgramNode() {}
 
+    /**
+     * Move the AST into a flat arena and release the node objects.
+     *
+     * The type checker flattens the program before it checks it, so it and the passes after it walk the arena.
+     */
+    public void flatten() {
+        arena = ArenaBuilder.build(this);
+        block = null;
+    }
+
     /**
      * Accepts a visitor to process this node.
      *
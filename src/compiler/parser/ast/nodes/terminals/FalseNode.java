@@ -2,12 +2,13 @@ package compiler.parser.ast.nodes.terminals;
 
 
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.TerminalNode;
 
 /**
  * A terminal node that represents the boolean literal false.
  */
-public class FalseNode implements TerminalNode {
+public class FalseNode extends AbstractExpressionNode implements TerminalNode {
     /**
      * Creates an empty FalseNode.
      */
@@ -2,19 +2,25 @@ package compiler.parser.ast.nodes.terminals;
 
 import compiler.lexer.tokens.Word;
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.TerminalNode;
+import compiler.symbols.Symbol;
 
 /**
  * A terminal node that represents an identifier.
  *
  * This node contains the identifier string for
  *
+ * The IdNode of a declaration is shared by every location that refers to it, and holds the symbol of the
+ * declaration, so the identifier is only looked up by name once, when the parser reaches it.
+ *
  * Example: x
  */
-public class IdNode implements TerminalNode {
+public class IdNode extends AbstractExpressionNode implements TerminalNode {
     // Word is used for looking up identifiers in the symbol table
     public Word word;
     public String id;
+    public Symbol symbol = null; // The declaration of the identifier, set when it is declared.
 
     /**
      * Creates an empty IdNode.
@@ -1,6 +1,5 @@
 package compiler.parser.ast.nodes.terminals;
 
-import compiler.lexer.Tag;
 import compiler.lexer.tokens.Word;
 import compiler.parser.ast.ASTVisitor;
 import compiler.parser.ast.nodes.StatementNode;
@@ -17,14 +16,11 @@ import compiler.parser.ast.nodes.StatementNode;
  *         if  x < 10   goto L1
  */
 public class LabelNode extends IdNode implements StatementNode {
-    // A static counter to give each label a unique incrementing number
-    static int label = 0;
-
     /**
      * Creates a LabelNode with the given word and id.
      *
-     * This constructor should not be used directly. Instead, use the static method LabelNode.newLabel() to
-     * create a new label.
+     * This constructor should not be used directly. Instead, use CompilationContext.newLabel() to create a
+     * new label that is numbered within its compilation.
      * @param word The word representing the label. (e.g. L1, L2, L3, ...)
      * @param id The identifier of the label.
      */
@@ -32,16 +28,6 @@ public class LabelNode extends IdNode implements StatementNode {
         super(word, id);
     }
 
-    /**
-     * Creates a new label with a unique identifier.
-     *
-     * @return A new LabelNode with a unique identifier. (e.g. L1, L2, L3, ...)
-     */
-    public static LabelNode newLabel() {
-        label++;
-        return new LabelNode(new Word("L" + label, Tag.ID), "L" + label);
-    }
-
     /**
      * Accepts a visitor to process this node.
      *
@@ -1,6 +1,7 @@
 package compiler.parser.ast.nodes.terminals;
 
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.TerminalNode;
 
 /**
@@ -8,7 +9,7 @@ import compiler.parser.ast.nodes.TerminalNode;
  *
  * Example: 5
  */
-public class NumNode implements TerminalNode {
+public class NumNode extends AbstractExpressionNode implements TerminalNode {
     public int num ;
 
     /**
@@ -2,6 +2,7 @@ package compiler.parser.ast.nodes.terminals;
 
 import compiler.lexer.tokens.Token;
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.TerminalNode;
 
 /**
@@ -9,7 +10,7 @@ import compiler.parser.ast.nodes.TerminalNode;
  *
  * Example: 1.86
  */
-public class RealNode implements TerminalNode {
+public class RealNode extends AbstractExpressionNode implements TerminalNode {
     public float value;
 
     /**
@@ -1,12 +1,13 @@
 package compiler.parser.ast.nodes.terminals;
 
 import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.nodes.AbstractExpressionNode;
 import compiler.parser.ast.nodes.TerminalNode;
 
 /**
  * A terminal node that represents the boolean literal true.
  */
-public class TrueNode implements TerminalNode {
+public class TrueNode extends AbstractExpressionNode implements TerminalNode {
     /**
      * Creates a TrueNode.
      */
@@ -211,9 +211,7 @@ public class PrettyPrinter implements ASTVisitor {
      */
     @Override
     public void visit(ArrayTypeNode node) {
-        print("[");
-        node.size.accept(this);
-        print("]");
+        print("[" + node.size + "]");
         if (node.type != null)
             node.type.accept(this);
     }
@@ -350,7 +348,7 @@ public class PrettyPrinter implements ASTVisitor {
     public void visit(BinaryExpressionNode node) {
         node.left.accept(this);
         print(" ");
-        print(node.operator);
+        print(node.operator.toString());
         print(" ");
         node.right.accept(this);
     }
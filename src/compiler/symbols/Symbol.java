@@ -6,11 +6,17 @@ import compiler.parser.ast.nodes.terminals.IdNode;
 /**
  * A symbol representing a variable declaration.
  *
- * Stores both the type and the identifier.
+ * Stores both the type and the identifier, and where the variable is stored once the StorageLayout has
+ * placed it in the frame.
  */
 public class Symbol {
     public TypeNode type;
     public IdNode id;
+    // The symbol of the same name from an outer scope, which this one hides while it is in scope.
+    Symbol shadowed = null;
+    // Slot and byte offset of the variable in the frame, or -1 until they are assigned by the StorageLayout.
+    public int slot = -1;
+    public int offset = -1;
 
     /**
      * Creates a symbol with the given type and identifier.
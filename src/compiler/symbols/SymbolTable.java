@@ -1,67 +1,138 @@
 package compiler.symbols;
 
-import compiler.lexer.tokens.Token;
 import compiler.lexer.tokens.Word;
 import compiler.parser.ast.nodes.declarations.DeclNode;
 
-import java.util.Hashtable;
+import java.util.Arrays;
 
 /**
  * Symbol table for storing variable declarations.
  *
- * This class allows each block to have its own scope containing symbols.
- * When an IdNode is encountered, the symbol table will be queried to find if
- * the identifier has been declared in the current scope. If not, it will
- * continue to look up higher scopes until it finds the identifier. If it
- * can't find one, it will return null.
+ * One table holds the declarations of every block that is open while the program is walked. Each block is
+ * its own scope: entering a block starts a scope, declarations are stored in the innermost scope, and leaving
+ * the block removes them again, so a name always resolves to the innermost declaration that is in scope.
  *
- * Variables are stored in the symbol table when the declarations are traversed
- * in the Parser, and retrieved when IdNodes are encountered in the Parser and
- * TypeChecker.
+ * The table is flat rather than a table per block. The innermost symbol of each name is kept in an array
+ * indexed by the name id the NameTable gave the identifier, and each symbol links to the symbol it shadows.
+ * Looking up a name is a single array read no matter how deeply the blocks are nested, and does not hash
+ * the name. The name id of each declaration is also written to a log, and a scope is just the length of the
+ * log when it was entered, so leaving a scope restores the symbols its declarations shadowed, and entering or
+ * leaving a block without declarations allocates nothing.
+ *
+ * Variables are stored in the symbol table when the declarations are traversed in the Parser, and retrieved
+ * when identifiers are encountered in the statements. Each declaration's IdNode keeps its symbol, and every
+ * location shares that IdNode, so no later stage needs the table, and it is dropped once parsing is done.
  */
 public class SymbolTable {
-    Hashtable<String, Symbol> table;
-    // Previous symbol table from the outer scope.
-    public SymbolTable previousTable;
+    // Innermost symbol of each name in scope, by name id.
+    private Symbol[] symbols = new Symbol[64];
+    // Name ids of the declarations in scope, in the order they were stored.
+    private int[] declared = new int[64];
+    private int declaredCount = 0;
+    // Number of declarations in scope when each open scope was entered, outermost first.
+    private int[] scopeStarts = new int[16];
+    private int depth = 0;
+
+    /**
+     * Creates an empty symbol table, with no scope open.
+     */
+    public SymbolTable() {
+    }
+
+    /**
+     * Create a copy of this table, which can be changed without changing this table.
+     *
+     * This is used to give each parser of a parallel parse its own table holding the outer block.
+     *
+     * @return a copy of this table, with the same scopes and symbols.
+     */
+    public SymbolTable copy() {
+        SymbolTable copy = new SymbolTable();
+        copy.symbols = symbols.clone();
+        copy.declared = declared.clone();
+        copy.declaredCount = declaredCount;
+        copy.scopeStarts = scopeStarts.clone();
+        copy.depth = depth;
+        return copy;
+    }
+
+    /**
+     * Start a new scope, for a block that is being entered.
+     */
+    public void enterScope() {
+        if (depth == scopeStarts.length)
+            scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+        scopeStarts[depth++] = declaredCount;
+    }
 
     /**
-     * Creates a new symbol table with the given previous symbol table stored, and initializes
-     * the new table.
+     * End the innermost scope, removing its declarations and bringing back the symbols they shadowed.
+     */
+    public void exitScope() {
+        int start = scopeStarts[--depth];
+        while (declaredCount > start) {
+            int nameId = declared[--declaredCount];
+            Symbol symbol = symbols[nameId];
+            symbols[nameId] = symbol.shadowed;
+            // The symbol lives on in its IdNode, which should not keep the one it shadowed.
+            symbol.shadowed = null;
+        }
+    }
+
+    /**
+     * End scopes until only the given number are left open.
      *
-     * @param table The symbol table of the outer scope of this table.
+     * @param depth the number of scopes to leave open.
      */
-    public SymbolTable(SymbolTable table) {
-        this.table = new Hashtable<>();
-        previousTable = table;
+    public void exitScopesTo(int depth) {
+        while (this.depth > depth)
+            exitScope();
     }
 
     /**
-     * Store a declared symbol in this table.
+     * Get the number of scopes that are open.
      *
-     * @param declNode The declaration node containing the type and identifier.
+     * @return the number of open scopes.
      */
-    public void storeSymbol(DeclNode declNode) {
-        Symbol s = new Symbol(declNode.type, declNode.id);
-        table.put(declNode.id.id, s);
+    public int getDepth() {
+        return depth;
     }
 
     /**
-     * Get the symbol for the given token.
+     * Store a declared symbol in the innermost scope, and in the IdNode of the declaration.
      *
-     * If it is not found it the current, it will continue to look up
-     * the symbol in a chain of higher scope symbol tables.
+     * A declaration that already has a symbol, because it is being brought back into scope to parse some of
+     * its statements again, keeps that symbol.
      *
-     * @param token The token containing the identifier to look up.
-     * @return The symbol for the given token, or null if it is not found.
+     * @param declNode The declaration node containing the type and identifier.
      */
-    public Symbol getSymbol(Token token) {
-        Word w = (Word) token;
-        for (SymbolTable s = this; s != null; s = s.previousTable) {
-            Symbol found = s.table.get(w.lexeme);
-            if (found != null) {
-                return found;
-            }
+    public void storeSymbol(DeclNode declNode) {
+        int nameId = declNode.id.word.nameId;
+        if (nameId >= symbols.length)
+            symbols = Arrays.copyOf(symbols, Math.max(nameId + 1, symbols.length * 2));
+        if (declaredCount == declared.length)
+            declared = Arrays.copyOf(declared, declaredCount * 2);
+
+        Symbol symbol = declNode.id.symbol;
+        if (symbol == null) {
+            symbol = new Symbol(declNode.type, declNode.id);
+            declNode.id.symbol = symbol;
         }
-        return null;
+        symbol.shadowed = symbols[nameId];
+        symbols[nameId] = symbol;
+        declared[declaredCount++] = nameId;
+    }
+
+    /**
+     * Get the symbol for the given identifier, from the innermost scope that declares it.
+     *
+     * @param word The identifier to look up, as interned by the NameTable.
+     * @return The symbol for the identifier, or null if it is not in scope.
+     */
+    public Symbol getSymbol(Word word) {
+        int nameId = word.nameId;
+        if (nameId < 0 || nameId >= symbols.length)
+            return null;
+        return symbols[nameId];
     }
 }
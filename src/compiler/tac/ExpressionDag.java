@@ -0,0 +1,110 @@
+package compiler.tac;
+
+import compiler.parser.ast.arena.AstArena;
+import compiler.parser.ast.arena.NodeKind;
+import compiler.parser.ast.nodes.structures.ProgramNode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares structurally identical expressions of a type checked program, turning its expressions into a DAG.
+ *
+ * Expressions in this language have no side effects, so two expressions built the same way from the same
+ * variables always have the same value and type. This goes through every expression of the program in its
+ * arena, and gives each one the first expression seen with the same operator and children as its canonical
+ * node, so a[i] or i + 1 has a single canonical node no matter how often it is written. Locations are shared
+ * by the declaration they refer to rather than by name, so variables of the same name in different blocks are
+ * never confused.
+ *
+ * The intermediate code generator can then tell when it reduces an expression it has already stored in a
+ * temporary variable, since it has the same canonical node. Children come before their parents in the arena,
+ * so the canonical nodes of an expression's children are always known by the time it is reached, and the
+ * arena is gone through once in order, without a stack.
+ */
+public class ExpressionDag {
+    /**
+     * What makes two expressions the same: their kind from NodeKind, and up to three canonical nodes or values.
+     */
+    private record Key(int kind, int first, int second, int third) {
+    }
+
+    // The canonical node of each node of the arena, which is the node itself for a node that is not an expression.
+    private final int[] canonical;
+    // The canonical node of each expression, by its structure.
+    private final Map<Key, Integer> nodes = new HashMap<>();
+
+    /**
+     * Create a DAG for the expressions of an arena.
+     *
+     * @param size the number of nodes in the arena.
+     */
+    private ExpressionDag(int size) {
+        canonical = new int[size];
+    }
+
+    /**
+     * Share the identical expressions of a program.
+     *
+     * @param program the type checked program, whose arena is left unchanged.
+     * @return the DAG, which gives the canonical node of each expression.
+     */
+    public static ExpressionDag build(ProgramNode program) {
+        AstArena arena = program.arena;
+        ExpressionDag dag = new ExpressionDag(arena.size());
+        for (int node = 0; node < arena.size(); node++)
+            dag.canonical[node] = dag.intern(arena, node);
+        return dag;
+    }
+
+    /**
+     * Get the canonical node of an expression, which is the first node in the arena with the same structure.
+     *
+     * @param node the index of the expression.
+     * @return the index of its canonical node.
+     */
+    public int getCanonical(int node) {
+        return canonical[node];
+    }
+
+    /**
+     * Get the number of distinct expressions in the program.
+     *
+     * @return the number of canonical nodes.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Find the canonical node of a node, whose children must already have theirs.
+     *
+     * @param arena the arena holding the node.
+     * @param node the index of the node.
+     * @return the index of the canonical node, or of the node itself if it is not an expression.
+     */
+    private int intern(AstArena arena, int node) {
+        int kind = arena.getKind(node);
+        int first = canonicalOf(arena.getFirst(node));
+        int second = canonicalOf(arena.getSecond(node));
+        Key key = switch (kind) {
+            case NodeKind.LOC -> new Key(kind, arena.getPayload(node), first, 0);
+            case NodeKind.ARRAY_LOC, NodeKind.PARENTHESIS -> new Key(kind, first, second, 0);
+            case NodeKind.BINARY, NodeKind.UNARY -> new Key(kind, arena.getPayload(node), first, second);
+            case NodeKind.NUM, NodeKind.REAL, NodeKind.TRUE, NodeKind.FALSE ->
+                    new Key(kind, arena.getPayload(node), 0, 0);
+            default -> null;
+        };
+        return key == null ? node : nodes.computeIfAbsent(key, k -> node);
+    }
+
+    /**
+     * Get the canonical node of a child.
+     *
+     * @param child the index of the child, or AstArena.NONE.
+     * @return the index of its canonical node, or AstArena.NONE if there is no child.
+     */
+    private int canonicalOf(int child) {
+        return child == AstArena.NONE ? AstArena.NONE : canonical[child];
+    }
+}
@@ -1,16 +1,23 @@
 package compiler.tac;
 
-import compiler.parser.ast.ASTVisitor;
+import compiler.CompilationContext;
+import compiler.lexer.tokens.Type;
+import compiler.parser.ast.WorkStack;
+import compiler.parser.ast.arena.ArenaVisitor;
+import compiler.parser.ast.arena.AstArena;
+import compiler.parser.ast.arena.NodeKind;
 import compiler.parser.ast.nodes.*;
-import compiler.parser.ast.nodes.declarations.*;
 import compiler.parser.ast.nodes.expressions.*;
 import compiler.parser.ast.nodes.expressions.operations.*;
 import compiler.parser.ast.nodes.statements.*;
 import compiler.parser.ast.nodes.structures.ProgramNode;
 import compiler.parser.ast.nodes.terminals.*;
+import compiler.symbols.Symbol;
 import compiler.typechecker.TypeChecker;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Stack;
 
@@ -29,15 +36,50 @@ import java.util.Stack;
  * Arrays are also handled by calculating the offset of the combined dimensions and the size of
  * the data type in order to access the correct memory location as an identifier and an offset.
  *
+ * The AST is read from the flat AstArena of the program, where each node is an index, and the statements of
+ * the intermediate code are made of new node objects. When an ExpressionDag is given, each expression is known
+ * by its canonical node, so an expression that is written more than once is recognized each time. Within a
+ * basic block, the temporary variable an expression was stored in is then reused instead of computing the
+ * expression again, until a variable is assigned to, which may change its value.
+ *
  * Unlike the AST, the intermediate code is a linear list of statements which will be executed
- * in order.
+ * in order. Nested statements and expressions are walked with explicit stacks instead of recursive
+ * calls, so the depth of nesting in the program is not limited by the size of the call stack.
  */
-public class IntermediateCodeGenerator implements ASTVisitor {
+public class IntermediateCodeGenerator implements ArenaVisitor {
     public ProgramNode program = null;
     // List of all TAC statements that will make up the intermediate code.
     public List<StatementNode> currentStatements;
     // A stack of end labels so the break statement knows where to go in its current loop.
     public Stack<LabelNode> loopEndLabels = new Stack<>();
+    // Numbers the temporary variables and labels of this compilation.
+    private final CompilationContext context;
+    // Statements that are still to be generated, and the code to emit once their bodies are done.
+    private final WorkStack work = new WorkStack();
+    // The flat AST of the program, and the shared expressions of it, or null if they are not shared.
+    private final AstArena arena;
+    private final ExpressionDag dag;
+    // The temporary variable each expression was stored in, by its canonical node, and the basic block it was
+    // stored in. A temporary variable is only available while its basic block is the current one.
+    private final TempNode[] temps;
+    private final int[] tempBlocks;
+    private int basicBlock = 1;
+
+    /**
+     * A node whose children are being reduced by reduceExpression, with the children reduced so far.
+     */
+    private static final class PendingReduction {
+        final int node;
+        final boolean needSingleResult;
+        ExpressionNode left = null; // The reduced left side of a binary expression.
+        int dimension = AstArena.NONE; // The ARRAY_LOC node of a loc node being reduced.
+        List<ExpressionNode> reducedDimensions = null; // The reduced dimensions of a loc node.
+
+        PendingReduction(int node, boolean needSingleResult) {
+            this.node = node;
+            this.needSingleResult = needSingleResult;
+        }
+    }
 
     /**
      * Creates an intermediate code generator using the type checked program AST from the
@@ -45,144 +87,164 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * will be stored as a list of statements in the currentStatements field.
      *
      * @param typeChecker The type checker which has type checked the parsed AST.
+     * @param context The context of the compilation, which creates the temporary variables and labels.
      */
-    public IntermediateCodeGenerator(TypeChecker typeChecker) {
-        typeChecker.program.accept(this);
-        program = typeChecker.program;
+    public IntermediateCodeGenerator(TypeChecker typeChecker, CompilationContext context) {
+        this(typeChecker.program, context);
     }
 
     /**
-     * Visits the program node and initializes the current statements list.
+     * Creates an intermediate code generator for a program whose arena already holds its types, such as one
+     * loaded from the AST cache, and immediately generates the intermediate code.
      *
-     * The currentStatements list will store all the statements involved in the program.
+     * @param program The type checked program AST.
+     * @param context The context of the compilation, which creates the temporary variables and labels.
+     */
+    public IntermediateCodeGenerator(ProgramNode program, CompilationContext context) {
+        this(program, null, context);
+    }
+
+    /**
+     * Creates an intermediate code generator for a type checked program whose expressions have been shared,
+     * and immediately generates the intermediate code.
      *
-     * @param node The program node to visit.
+     * @param program The type checked program AST.
+     * @param dag The shared expressions of the program, or null to treat every expression as distinct.
+     * @param context The context of the compilation, which creates the temporary variables and labels.
      */
-    @Override
-    public void visit(ProgramNode node) {
+    public IntermediateCodeGenerator(ProgramNode program, ExpressionDag dag, CompilationContext context) {
+        this.context = context;
+        this.arena = program.arena;
+        this.dag = dag;
+        temps = new TempNode[arena.size()];
+        tempBlocks = new int[arena.size()];
         currentStatements = new ArrayList<>();
-        node.block.accept(this);
+        work.run(() -> arena.accept(arena.getRoot(), this));
+        this.program = program;
     }
 
     /**
-     * Visit a block node and visit all the statements within the block.
+     * Visit a BLOCK node and visit all the statements within the block.
      *
      * Declarations are ignored because they are for the type checker and not necessary for the intermediate code.
      *
-     * @param node The block node to visit.
+     * @param node The BLOCK node to visit.
      */
     @Override
-    public void visit(BlockNode node) {
-        for (StatementNode statement : node.statements)
-            statement.accept(this);
+    public void visitBlock(int node) {
+        work.scheduleVisits(arena, arena.getSecond(node), this);
     }
 
     /**
-     * Reduce the assignment node's left and right side and emit an assignment statement.
+     * Reduce the ASSIGNMENT node's left and right side and emit an assignment statement.
      *
      * The left side is reduced to a LocNode which is a single identifier and optional array access.
      * If there is an array access, then the right side is reduced to a single value, a temp variable.
      *
      * Example of possible returns: a[542] = 5, a = 5 + 5, a[100] = t1
      *
-     * @param node The assignment node to visit.
+     * @param node The ASSIGNMENT node to visit.
      */
     @Override
-    public void visit(AssignmentNode node) {
-        node.left = reduceLocNode(node.left, false);
-        node.expression = reduceExpression(node.expression, node.left.isArray());
-        emitAssignment(node.left, node.expression);
+    public void visitAssignment(int node) {
+        LocNode left = reduceLocNode(arena.getFirst(node), false);
+        ExpressionNode expression = reduceExpression(arena.getSecond(node), left.isArray());
+        emitAssignment(left, expression);
     }
 
     /**
-     * Visit an IfNode and reduce the expression and statement(s).
+     * Visit an IF node and reduce the expression and statement(s).
      *
      * This will emit labels, goto, and ifFalse statements to handle flow control.
      *
-     * @param node The IfNode to visit.
+     * @param node The IF node to visit.
      */
     @Override
-    public void visit(IfNode node) {
-        node.expression = reduceExpression(node.expression, false);
+    public void visitIf(int node) {
+        ExpressionNode expression = reduceExpression(arena.getFirst(node), false);
+        int thenStatement = arena.getSecond(node);
+        int elseStatement = arena.getThird(node);
 
-        LabelNode falseLabel = LabelNode.newLabel();
+        LabelNode falseLabel = context.newLabel();
         // End label only necessary if there is an else statement.
-        LabelNode endLabel = (node.elseStatement != null) ? LabelNode.newLabel() : null;
-
-        emitIfFalse(node.expression, falseLabel);
-
-        node.thenStatement.accept(this);
+        LabelNode endLabel = (elseStatement != AstArena.NONE) ? context.newLabel() : null;
 
-        if (node.elseStatement != null)
-            emitGoto(endLabel);
+        emitIfFalse(expression, falseLabel);
 
-        emitLabel(falseLabel);
-
-        if (node.elseStatement != null) {
-            node.elseStatement.accept(this);
-            emitLabel(endLabel);
+        if (elseStatement == AstArena.NONE) {
+            work.schedule(() -> arena.accept(thenStatement, this), () -> emitLabel(falseLabel));
+            return;
         }
+
+        work.schedule(() -> arena.accept(thenStatement, this),
+                () -> {
+                    emitGoto(endLabel);
+                    emitLabel(falseLabel);
+                },
+                () -> arena.accept(elseStatement, this),
+                () -> emitLabel(endLabel));
     }
 
     /**
-     * Visit a WhileNode and reduce the expression and body.
+     * Visit a WHILE node and reduce the expression and body.
      *
      * This will emit labels, goto, and ifFalse statements to handle flow control. If
      * the statement is a true literal, it will skip the conditional part and just have
      * the loop structure.
      *
-     * @param node The WhileNode to visit.
+     * @param node The WHILE node to visit.
      */
     @Override
-    public void visit(WhileNode node) {
-        LabelNode startLabel = LabelNode.newLabel();
-        LabelNode endLabel = LabelNode.newLabel();
+    public void visitWhile(int node) {
+        LabelNode startLabel = context.newLabel();
+        LabelNode endLabel = context.newLabel();
         emitLabel(startLabel);
 
         // If it is a true literal, we don't need a false check.
-        if (!(node.expression instanceof TrueNode)) {
-            node.expression = reduceExpression(node.expression, false);
-            emitIfFalse(node.expression, endLabel);
-        }
+        int expression = arena.getFirst(node);
+        if (arena.getKind(expression) != NodeKind.TRUE)
+            emitIfFalse(reduceExpression(expression, false), endLabel);
 
         loopEndLabels.push(endLabel);
-        node.body.accept(this);
-        loopEndLabels.pop();
+        work.schedule(() -> arena.accept(arena.getSecond(node), this), () -> {
+            loopEndLabels.pop();
 
-        emitGoto(startLabel);
-        emitLabel(endLabel);
+            emitGoto(startLabel);
+            emitLabel(endLabel);
+        });
     }
 
     /**
-     * Visit a DoWhileNode and reduce the expression and body.
+     * Visit a DO_WHILE node and reduce the expression and body.
      *
      * This will emit labels, goto, and ifTrue statements to handle flow control.
      *
-     * @param node The DoWhileNode to visit.
+     * @param node The DO_WHILE node to visit.
      */
     @Override
-    public void visit(DoWhileNode node) {
-        LabelNode startLabel = LabelNode.newLabel();
-        LabelNode endLabel = LabelNode.newLabel();
+    public void visitDoWhile(int node) {
+        LabelNode startLabel = context.newLabel();
+        LabelNode endLabel = context.newLabel();
         emitLabel(startLabel);
 
         loopEndLabels.push(endLabel);
-        node.body.accept(this);
-        loopEndLabels.pop();
+        work.schedule(() -> arena.accept(arena.getFirst(node), this), () -> {
+            loopEndLabels.pop();
 
-        node.expression = reduceExpression(node.expression, false);
+            ExpressionNode expression = reduceExpression(arena.getSecond(node), false);
 
-        emitIfTrue(node.expression, startLabel);
+            emitIfTrue(expression, startLabel);
+        });
     }
 
 
     /**
-     * Visit a BreakNode and emit a goto statement to the end of the loop.
+     * Visit a BREAK node and emit a goto statement to the end of the loop.
      *
-     * @param node The BreakNode to visit.
+     * @param node The BREAK node to visit.
      */
     @Override
-    public void visit(BreakNode node) {
+    public void visitBreak(int node) {
         emitGoto(loopEndLabels.peek());
     }
 
@@ -190,108 +252,236 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * Reduce the expression of the node to a single value if needSingleResult is true, otherwise
      * reduce to at most two values.
      *
-     * This will choose the correct method to do the reduction based on the type of node. If
-     * It's BinaryExpression, Unary, Loc, or Parenthesis, it is already reduced and will return itself.
+     * This will choose the correct way to do the reduction based on the kind of node. If
+     * it's BINARY, UNARY, LOC, or PARENTHESIS, its children are reduced first, otherwise it is
+     * already reduced and a node object for it will be returned. The nodes whose children are still being
+     * reduced are kept on a stack, so there is no limit on how deeply the expression can be nested.
      *
      * Temporary variables will be assigned along the way to store intermediate results.
      *
      * Example: 5 + 5 * 5 could be reduced to t1 = 5 * 5; t2 = 5 + t1 through this.
      *
-     * @param node             The expression node to reduce.
+     * @param node             The index of the expression node to reduce.
      * @param needSingleResult If true, reduce to a single value, otherwise reduce to at most two values.
      * @return The final reduced expression node.
      */
-    public ExpressionNode reduceExpression(ExpressionNode node, Boolean needSingleResult) {
-        if (node instanceof BinaryExpressionNode)
-            return reduceBinaryExpression((BinaryExpressionNode) node, needSingleResult);
-        if (node instanceof UnaryNode)
-            return reduceUnaryExpression((UnaryNode) node, needSingleResult);
-        if (node instanceof LocNode)
-            return reduceLocNode((LocNode) node, needSingleResult);
-        if (node instanceof ParenthesisNode) // Just ignore the parenthesis and reduce the expression inside.
-            return reduceExpression(((ParenthesisNode) node).expression, needSingleResult);
-        return node;
+    public ExpressionNode reduceExpression(int node, boolean needSingleResult) {
+        Deque<PendingReduction> pending = new ArrayDeque<>();
+        int next = node;
+        boolean single = needSingleResult;
+        while (true) {
+            // Go down to the first node that is already reduced, starting the reduction of each node on the way.
+            ExpressionNode result = null;
+            while (result == null) {
+                int kind = arena.getKind(next);
+                TempNode available = single ? getAvailableTemp(next) : null;
+                if (available != null) {
+                    // The expression is already stored in a temporary variable.
+                    result = available;
+                } else if (kind == NodeKind.PARENTHESIS) {
+                    // Just ignore the parenthesis and reduce the expression inside.
+                    next = arena.getFirst(next);
+                } else if (kind == NodeKind.BINARY) {
+                    pending.push(new PendingReduction(next, single));
+                    // The left and right will always need to be reduced to a single value.
+                    next = arena.getFirst(next);
+                    single = true;
+                } else if (kind == NodeKind.UNARY) {
+                    pending.push(new PendingReduction(next, single));
+                    next = arena.getFirst(next);
+                } else if (kind == NodeKind.LOC && arena.getFirst(next) != AstArena.NONE) {
+                    // For each dimensional accessor, reduce the expression and store as a list.
+                    // (e.g. a[1][1+2][3] -> [1, t1, 3])
+                    PendingReduction reduction = new PendingReduction(next, single);
+                    reduction.dimension = arena.getFirst(next);
+                    reduction.reducedDimensions = new ArrayList<>();
+                    pending.push(reduction);
+                    next = arena.getFirst(reduction.dimension);
+                    single = true;
+                } else {
+                    result = createTerminal(next);
+                }
+            }
+
+            // Go back up, finishing every node whose children are now all reduced, until one has a child left.
+            next = AstArena.NONE;
+            while (next == AstArena.NONE) {
+                PendingReduction reduction = pending.peek();
+                if (reduction == null)
+                    return result;
+
+                int kind = arena.getKind(reduction.node);
+                if (kind == NodeKind.BINARY) {
+                    if (reduction.left == null) {
+                        reduction.left = result;
+                        next = arena.getSecond(reduction.node);
+                        single = true;
+                    } else {
+                        pending.pop();
+                        result = reduceBinaryExpression(reduction.node, reduction.left, result,
+                                reduction.needSingleResult);
+                    }
+                } else if (kind == NodeKind.UNARY) {
+                    pending.pop();
+                    UnaryNode reduced = new UnaryNode();
+                    reduced.operator = Operator.unary(arena.getPayload(reduction.node));
+                    reduced.expression = result;
+                    result = withType(reduced, reduction.node);
+                } else {
+                    reduction.reducedDimensions.add(result);
+                    reduction.dimension = arena.getSecond(reduction.dimension);
+                    if (reduction.dimension != AstArena.NONE) {
+                        next = arena.getFirst(reduction.dimension);
+                        single = true;
+                    } else {
+                        pending.pop();
+                        result = reduceArrayAccess(reduction.node, reduction.reducedDimensions,
+                                reduction.needSingleResult);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the node object of an expression that needs no reducing, which is a literal or a location that
+     * is not an array.
+     *
+     * @param node The index of the expression node.
+     * @return A new node with the value or identifier, and the type, of the expression.
+     */
+    private ExpressionNode createTerminal(int node) {
+        ExpressionNode terminal = switch (arena.getKind(node)) {
+            case NodeKind.LOC -> {
+                LocNode loc = new LocNode(arena.getSymbol(arena.getPayload(node)).id, null);
+                loc.setLine(arena.getLine(node));
+                yield loc;
+            }
+            case NodeKind.NUM -> new NumNode(arena.getPayload(node));
+            case NodeKind.REAL -> {
+                RealNode real = new RealNode();
+                real.value = Float.intBitsToFloat(arena.getPayload(node));
+                yield real;
+            }
+            case NodeKind.TRUE -> new TrueNode();
+            case NodeKind.FALSE -> new FalseNode();
+            default -> throw new IllegalStateException("Not an expression: " + arena.getKind(node));
+        };
+        return withType(terminal, node);
+    }
+
+    /**
+     * Give a node of the intermediate code the type the type checker found for an expression, if it has one.
+     *
+     * The expressions of an array index are not type checked, so they have no type.
+     *
+     * @param expression The node of the intermediate code.
+     * @param node The index of the expression node it was reduced from.
+     * @return The node of the intermediate code.
+     */
+    private ExpressionNode withType(ExpressionNode expression, int node) {
+        Type type = arena.getType(node);
+        if (type != null)
+            expression.setType(type);
+        return expression;
+    }
+
+    /**
+     * Get the temporary variable an expression was stored in, if it was stored in the current basic block.
+     *
+     * @param node The index of the expression node.
+     * @return The temporary variable, or null if the expression has to be computed.
+     */
+    private TempNode getAvailableTemp(int node) {
+        int key = dag == null ? node : dag.getCanonical(node);
+        return tempBlocks[key] == basicBlock ? temps[key] : null;
     }
 
     /**
-     * Reduces a binary expression node by reducing the left and right expressions.
+     * Remember the temporary variable an expression was stored in, for the rest of the current basic block.
+     *
+     * @param node The index of the expression node.
+     * @param temp The temporary variable.
+     */
+    private void setAvailableTemp(int node, TempNode temp) {
+        int key = dag == null ? node : dag.getCanonical(node);
+        temps[key] = temp;
+        tempBlocks[key] = basicBlock;
+    }
+
+    /**
+     * Creates the reduced form of a binary expression node from its reduced left and right expressions.
      *
      * If the needSingleResult is true, it will store the binary expression as a temporary variable
      * and return that temporary variable.
      *
-     * @param node             The binary expression node to reduce.
+     * @param node             The index of the BINARY node to reduce.
+     * @param left             The reduced left expression.
+     * @param right            The reduced right expression.
      * @param needSingleResult If true, reduce to a temp variable, otherwise just reduce the left/right.
      * @return The final reduced binary expression node, or a temp variable pointing to its result.
      */
-    public ExpressionNode reduceBinaryExpression(BinaryExpressionNode node, Boolean needSingleResult) {
-        // The left and right will always need to be reduced to a single value.
-        ExpressionNode left = reduceExpression(node.left, true);
-        ExpressionNode right = reduceExpression(node.right, true);
-
+    private ExpressionNode reduceBinaryExpression(int node, ExpressionNode left, ExpressionNode right,
+                                                  boolean needSingleResult) {
         // If it needs to be a single result, store the binary expression as a temporary variable.
-        BinaryExpressionNode result = new BinaryExpressionNode(left, right, node.operator);
+        BinaryExpressionNode result = new BinaryExpressionNode(left, right, Operator.binary(arena.getPayload(node)));
         if (needSingleResult) {
-            TempNode temp = TempNode.newTemp();
+            TempNode temp = context.newTemp();
             emitAssignment(temp, result);
+            setAvailableTemp(node, temp);
             return temp;
         }
         return result;
     }
 
     /**
-     * Reduces the inner expression of a unary node.
+     * Reduce a loc node by reducing array accessors to a single offset value.
      *
-     * @param node             The unary node to reduce.
-     * @param needSingleResult If true, the inner expression will be stored as a temporary variable,
-     *                         otherwise it will just be reduced to at most two values.
-     * @return The final reduced unary node.
+     * If needSingleResult is true, store the array access as a temporary variable.
+     *
+     * @param node             The index of the LOC node to reduce.
+     * @param needSingleResult If true, store the array access as a temporary variable.
+     *                         Otherwise, just reduce the array accessors to a single offset value.
+     * @return The final reduced loc node.
      */
-    public ExpressionNode reduceUnaryExpression(UnaryNode node, Boolean needSingleResult) {
-        node.expression = reduceExpression(node.expression, needSingleResult);
-        return node;
+    public LocNode reduceLocNode(int node, boolean needSingleResult) {
+        // A loc node is always reduced to a loc node, either itself, a loc node with an offset, or a temp.
+        return (LocNode) reduceExpression(node, needSingleResult);
     }
 
     /**
-     * Reduce a loc node by reducing array accessors to a single offset value.
-     *
-     * If needSingleResult is true, store the array access as a temporary variable.
+     * Creates the reduced form of an array access from its reduced dimension expressions.
      *
      * The goal of this is to calculate the total memory access offset for the array by
-     * reducing the dimension expressions, summing the strides, and then multiplying it
-     * by the size of the type. It returns a new loc node with the original identifier
-     * and a one dimensional memory access offset.
+     * summing the strides of the reduced dimensions, and then multiplying it by the size
+     * of the type. It returns a new loc node with the original identifier and a one
+     * dimensional memory access offset.
      *
-     * @param node             The loc node to reduce.
-     * @param needSingleResult If true, store the array access as a temporary variable.
-     *                         Otherwise, just reduce the array accessors to a single offset value.
+     * @param node              The index of the LOC node to reduce.
+     * @param reducedDimensions The reduced expression of each dimension.
+     * @param needSingleResult  If true, store the array access as a temporary variable.
      * @return The final reduced loc node.
      */
-    public LocNode reduceLocNode(LocNode node, Boolean needSingleResult) {
-        // If it's not an array, just return the loc node which is a single identifier.
-        if (!node.isArray())
-            return node;
-
-        // For each dimensional accessor, reduce the expression and store as a list.
-        // (e.g. a[1][1+2][3] -> [1, t1, 3])
-        List<ExpressionNode> reducedDimensions = reduceDimensions(node);
-
+    private LocNode reduceArrayAccess(int node, List<ExpressionNode> reducedDimensions, boolean needSingleResult) {
+        Symbol symbol = arena.getSymbol(arena.getPayload(node));
         // Go through each dimension and calculate the accumulated offset.
         ExpressionNode totalOffset = null;
         for (int i = 0; i < reducedDimensions.size(); i++) {
             // Calculate the offset of the dimension based on the stride.
-            ExpressionNode additionalOffset = calculateOffset(node, i, reducedDimensions);
+            ExpressionNode additionalOffset = calculateOffset(symbol, i, reducedDimensions);
             // Add this additional offset to the total offset.
             totalOffset = addAdditionalOffset(totalOffset, additionalOffset);
         }
 
         // Create a final loc node that uses the initial identifier and the final offset value to access it.
-        LocNode finalLoc = createFinalLoc(node, totalOffset);
+        LocNode finalLoc = createFinalLoc(symbol, totalOffset);
 
         // If it requires a single result, store the array access as a temporary variable.
         // (e.g. a[100] = a[10] -> t1 = a[10]; a[100] = t1)
         if (needSingleResult) {
-            TempNode temp = TempNode.newTemp();
+            TempNode temp = context.newTemp();
             emitAssignment(temp, finalLoc);
+            setAvailableTemp(node, temp);
             return temp;
         } else {
             return finalLoc;
@@ -305,16 +495,17 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * For example, if the total offset is 10 and the type is int, int is 4 bytes wide, so the final offset
      * is 4 * 10 = 40.
      *
-     * @param node        The original loc node.
+     * @param symbol      The symbol of the array being accessed.
      * @param totalOffset The total offset value of the array access.
      * @return The final loc node with the calculated offset stored as its array accessor.
      */
-    private LocNode createFinalLoc(LocNode node, ExpressionNode totalOffset) {
-        TempNode finalOffset = TempNode.newTemp();
+    private LocNode createFinalLoc(Symbol symbol, ExpressionNode totalOffset) {
+        TempNode finalOffset = context.newTemp();
         // Multiply the total offset by the width (bytes) of the type to get the final offset value.
-        emitAssignment(finalOffset, new BinaryExpressionNode(totalOffset, node.getWidthNumNode(), "*"));
+        NumNode width = new NumNode(symbol.type.type.width);
+        emitAssignment(finalOffset, new BinaryExpressionNode(totalOffset, width, Operator.MUL));
         // Create a new loc node with the final offset, n[finalOffset].
-        return new LocNode(node.id, new ArrayLocNode(null, finalOffset));
+        return new LocNode(symbol.id, new ArrayLocNode(null, finalOffset));
     }
 
     /**
@@ -330,8 +521,8 @@ public class IntermediateCodeGenerator implements ASTVisitor {
             totalOffset = additionalOffset;
             // Otherwise, add the additional offset to the total offset.
         } else {
-            TempNode temp = TempNode.newTemp();
-            emitAssignment(temp, new BinaryExpressionNode(totalOffset, additionalOffset, "+"));
+            TempNode temp = context.newTemp();
+            emitAssignment(temp, new BinaryExpressionNode(totalOffset, additionalOffset, Operator.ADD));
             totalOffset = temp;
         }
         return totalOffset;
@@ -341,12 +532,12 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * Calculate the offset of a given dimension by multiplying the dimension expression by
      * the stride of the dimension.
      *
-     * @param node              The loc node to calculate the offset for.
+     * @param symbol            The symbol of the array to calculate the offset for.
      * @param i                 The index of the dimension to calculate the offset for.
      * @param reducedDimensions The reduced dimension expressions.
      * @return The additional offset for the given dimension.
      */
-    private ExpressionNode calculateOffset(LocNode node, int i, List<ExpressionNode> reducedDimensions) {
+    private ExpressionNode calculateOffset(Symbol symbol, int i, List<ExpressionNode> reducedDimensions) {
         // Get the dimension expression.
         // (e.g. a[10][20] would return 10 for i = 0 and 20 for i = 1)
         ExpressionNode dimension = reducedDimensions.get(i);
@@ -356,57 +547,14 @@ public class IntermediateCodeGenerator implements ASTVisitor {
             additionalOffset = dimension;
             // Otherwise, calculate stride and multiply it by the dimension expression.
         } else {
-            TempNode temp = TempNode.newTemp();
-            NumNode stride = new NumNode(calculateStride(node.id.getType(), i));
-            emitAssignment(temp, new BinaryExpressionNode(dimension, stride, "*"));
+            TempNode temp = context.newTemp();
+            NumNode stride = new NumNode(symbol.type.getStride(i));
+            emitAssignment(temp, new BinaryExpressionNode(dimension, stride, Operator.MUL));
             additionalOffset = temp;
         }
         return additionalOffset;
     }
 
-    /**
-     * Calculate the stride of a given dimension.
-     *
-     * This calculates the stride by multiplying the sizes of each of the dimensions after
-     * the given dimension.
-     *
-     * For example, if you declare an int array as int[3][5][7], there are 3 dimensions 0, 1, 2.
-     * The stride of 0 would be 5 * 7 = 35
-     * The stride of 1 would be 7
-     * The stride of 2 would be 1
-     *
-     * @param type      The type of the array containing the dimensions.
-     * @param dimension The dimension index to calculate the stride for.
-     * @return The stride of the given dimension.
-     */
-    private static int calculateStride(TypeNode type, int dimension) {
-        int stride = 1;
-        // Excluding the first dimension, find the product of the declared sizes of the dimensions.
-        for (int i = dimension + 1; i < type.getDepth(); i++)
-            stride *= type.getDimensionSize(i).num;
-        return stride;
-    }
-
-    /**
-     * Reduce the array accessors of the loc node to a list of reduced expressions.
-     *
-     * This will iterate through each ArrayLocNode of the LocNode and reduce its expression and
-     * store the resulting reduced expression nodes in a list to be used for calculating the offset.
-     *
-     * For example, if the LocNoe is a[5][3+10][4*4], it would return a list of expressions
-     * [5, t1, t2] where t1 = 3 + 10 and t2 = 4 * 4.
-     *
-     * @param node The loc node to reduce the array accessors for.
-     * @return List of reduced expressions for each dimension.
-     */
-    private List<ExpressionNode> reduceDimensions(LocNode node) {
-        List<ExpressionNode> reducedDimensions = new ArrayList<>();
-        // Traverse through each dimension and reduce the expression, and reduce the expression.
-        for (ArrayLocNode a = node.array; a != null; a = a.array)
-            reducedDimensions.add(reduceExpression(a.expression, true));
-        return reducedDimensions;
-    }
-
     /**
      * Add an assignment statement to the current statements list.
      *
@@ -422,6 +570,9 @@ public class IntermediateCodeGenerator implements ASTVisitor {
         assign.left = left;
         assign.expression = right;
         currentStatements.add(assign);
+        // Any stored expression could read the variable, but temporary variables are only assigned once.
+        if (!(left instanceof TempNode))
+            basicBlock++;
     }
 
     /**
@@ -432,6 +583,8 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * @param label The label to emit.
      */
     public void emitLabel(LabelNode label) {
+        // A label starts a basic block, which can be reached without the temporary variables of the one before.
+        basicBlock++;
         currentStatements.add(label);
     }
 
@@ -445,6 +598,7 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * @param label The label to goto.
      */
     public void emitGoto(LabelNode label) {
+        basicBlock++;
         currentStatements.add(new GotoNode(label));
     }
 
@@ -460,7 +614,7 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * @param label      The label to go to if the expression is false.
      */
     public void emitIfFalse(ExpressionNode expression, LabelNode label) {
-        emitLabel(LabelNode.newLabel());
+        emitLabel(context.newLabel());
         currentStatements.add(new IfFalseNode(expression));
         currentStatements.add(new GotoNode(label));
     }
@@ -475,6 +629,7 @@ public class IntermediateCodeGenerator implements ASTVisitor {
      * @param label      The label to go to if the expression is true.
      */
     public void emitIfTrue(ExpressionNode expression, LabelNode label) {
+        basicBlock++;
         currentStatements.add(new IfTrueNode(expression));
         currentStatements.add(new GotoNode(label));
     }
@@ -194,19 +194,26 @@ public class IntermediateCodePrinter implements ASTVisitor {
     @Override
     public void visit(BinaryExpressionNode node) {
         node.left.accept(this);
-        print(node.operator);
+        print(node.operator.toString());
         node.right.accept(this);
     }
 
     /**
      * Print the unary operator and expression to the output file.
      *
+     * A chain of unary operators, such as !!!a, is printed in a loop rather than by visiting each
+     * unary node in turn, as the chain can be as long as the source code.
+     *
      * @param node The unary node to print.
      */
     @Override
     public void visit(UnaryNode node) {
-        print(node.operator.toString());
-        node.expression.accept(this);
+        ExpressionNode expression = node;
+        while (expression instanceof UnaryNode unary) {
+            print(unary.operator.toString());
+            expression = unary.expression;
+        }
+        expression.accept(this);
     }
 
     /**
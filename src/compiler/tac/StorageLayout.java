@@ -0,0 +1,292 @@
+package compiler.tac;
+
+import compiler.lexer.tokens.Type;
+import compiler.parser.ast.ASTVisitor;
+import compiler.parser.ast.WorkStack;
+import compiler.parser.ast.arena.ArenaVisitor;
+import compiler.parser.ast.arena.AstArena;
+import compiler.parser.ast.nodes.StatementNode;
+import compiler.parser.ast.nodes.expressions.ArrayLocNode;
+import compiler.parser.ast.nodes.expressions.LocNode;
+import compiler.parser.ast.nodes.expressions.ParenthesisNode;
+import compiler.parser.ast.nodes.expressions.TempNode;
+import compiler.parser.ast.nodes.expressions.operations.BinaryExpressionNode;
+import compiler.parser.ast.nodes.expressions.operations.UnaryNode;
+import compiler.parser.ast.nodes.statements.*;
+import compiler.parser.ast.nodes.structures.ProgramNode;
+import compiler.symbols.Symbol;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides where every variable of a program is stored in its frame.
+ *
+ * Each declared variable and each temporary variable of the intermediate code is given a slot, numbered from
+ * 0, and a byte offset in the frame, which are stored in its Symbol or TempNode. The frame is laid out as the
+ * declared variables followed by the temporary variables.
+ *
+ * Declared variables only exist while their block runs, so blocks that are not nested in each other can use
+ * the same slots. The variables of a block are placed after those of the blocks around it, and once the
+ * block is done its slots are free for the next block. Each variable is aligned to the width of its basic
+ * type, and an array takes the width of its basic type times the number of elements.
+ *
+ * A temporary variable is assigned once, and only read by the statements after it in the same basic block,
+ * so it only needs its slot from the statement that assigns it to the last statement that reads it. After
+ * that, the slot is given to the next temporary variable that is assigned. Temporary variables are not typed,
+ * so each slot is wide enough for any basic type.
+ *
+ * For example, in { int a; { float b; } { int c; int d; } } the variable a is in slot 0 at offset 0, b is
+ * in slot 1 at offset 8, and c and d are in slots 1 and 2 at offsets 4 and 8, so the frame takes 16 bytes.
+ */
+public class StorageLayout implements ArenaVisitor {
+    // Width of the slot of a temporary variable, which is the width of the widest basic type.
+    private static final int TEMP_WIDTH = Type.Float.width;
+
+    private final WorkStack work = new WorkStack();
+    private final AstArena arena; // The flat AST of the program being laid out.
+    // The next slot and offset free for a declared variable, in the blocks being laid out.
+    private int nextSlot = 0;
+    private int nextOffset = 0;
+    // The most slots and bytes the declared variables take at once.
+    private int variableSlots = 0;
+    private int variableSize = 0;
+    private int tempSlots = 0; // The most slots the temporary variables take at once.
+    private int frameSize = 0;
+
+    /**
+     * Create a layout with nothing placed yet.
+     *
+     * @param arena the flat AST of the program to lay out.
+     */
+    private StorageLayout(AstArena arena) {
+        this.arena = arena;
+    }
+
+    /**
+     * Place every declared variable of a program, and every temporary variable of its intermediate code.
+     *
+     * @param program the flattened program, whose declarations have their symbols.
+     * @param code the intermediate code of the program.
+     * @return the layout of the frame of the program.
+     */
+    public static StorageLayout build(ProgramNode program, List<StatementNode> code) {
+        StorageLayout layout = new StorageLayout(program.arena);
+        layout.work.run(() -> program.arena.accept(program.arena.getRoot(), layout));
+        layout.placeTemps(code);
+        return layout;
+    }
+
+    /**
+     * Get the number of bytes the frame takes, with every variable in it.
+     *
+     * @return the size of the frame in bytes.
+     */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * Get the number of slots used by declared variables.
+     *
+     * @return the number of slots of declared variables.
+     */
+    public int getVariableSlots() {
+        return variableSlots;
+    }
+
+    /**
+     * Get the number of slots used by temporary variables.
+     *
+     * @return the number of slots of temporary variables.
+     */
+    public int getTempSlots() {
+        return tempSlots;
+    }
+
+    /**
+     * Returns a summary of the layout.
+     *
+     * @return the size of the frame and the number of slots in it.
+     */
+    @Override
+    public String toString() {
+        return "frame size: %d bytes, %d variable slots, %d temporary slots"
+                .formatted(frameSize, variableSlots, tempSlots);
+    }
+
+    /**
+     * Round an offset up to a multiple of the given width.
+     *
+     * @param offset the offset.
+     * @param width the width, which is a power of two.
+     * @return the smallest multiple of the width that is not less than the offset.
+     */
+    private static int align(int offset, int width) {
+        return (offset + width - 1) & -width;
+    }
+
+    /**
+     * Place a declared variable at the next free slot and offset.
+     *
+     * @param symbol the symbol of the variable.
+     */
+    private void place(Symbol symbol) {
+        nextOffset = align(nextOffset, symbol.type.type.width);
+        symbol.slot = nextSlot++;
+        symbol.offset = nextOffset;
+        nextOffset = Math.addExact(nextOffset, symbol.type.getByteSize());
+        variableSlots = Math.max(variableSlots, nextSlot);
+        variableSize = Math.max(variableSize, nextOffset);
+    }
+
+    /**
+     * Place the temporary variables of the intermediate code after the declared variables.
+     *
+     * @param code the intermediate code of the program.
+     */
+    private void placeTemps(List<StatementNode> code) {
+        TempReads reads = new TempReads();
+        // Index of the last statement that reads each temporary variable.
+        Map<TempNode, Integer> lastReads = new IdentityHashMap<>();
+        for (int i = 0; i < code.size(); i++)
+            for (TempNode temp : reads.of(code.get(i)))
+                lastReads.put(temp, i);
+
+        int tempStart = align(variableSize, TEMP_WIDTH);
+        Deque<Integer> freeSlots = new ArrayDeque<>(); // Temporary slots, counted from the first one.
+        for (int i = 0; i < code.size(); i++) {
+            StatementNode statement = code.get(i);
+            // A statement reads its operands before it assigns, so the slots it last reads are free to assign.
+            for (TempNode temp : reads.of(statement)) {
+                Integer last = lastReads.get(temp);
+                if (last != null && last == i && temp.slot >= 0) {
+                    lastReads.remove(temp);
+                    freeSlots.push(temp.slot - variableSlots);
+                }
+            }
+
+            if (statement instanceof AssignmentNode assignment && assignment.left instanceof TempNode temp) {
+                int index = freeSlots.isEmpty() ? tempSlots++ : freeSlots.pop();
+                temp.slot = variableSlots + index;
+                temp.offset = tempStart + index * TEMP_WIDTH;
+                if (!lastReads.containsKey(temp))
+                    freeSlots.push(index);
+            }
+        }
+        frameSize = tempStart + tempSlots * TEMP_WIDTH;
+    }
+
+    /**
+     * Place the declarations of a block, and then the blocks nested in it, which reuse the slots of any
+     * block nested before them.
+     *
+     * @param node The BLOCK node to visit.
+     */
+    @Override
+    public void visitBlock(int node) {
+        int slot = nextSlot;
+        int offset = nextOffset;
+        for (int decl = arena.getFirst(node); decl != AstArena.NONE; decl = arena.getNext(decl))
+            place(arena.getSymbol(decl));
+        work.scheduleVisits(arena, arena.getSecond(node), this, () -> {
+            nextSlot = slot;
+            nextOffset = offset;
+        });
+    }
+
+    @Override
+    public void visitIf(int node) {
+        if (arena.getThird(node) == AstArena.NONE)
+            work.schedule(() -> arena.accept(arena.getSecond(node), this));
+        else
+            work.schedule(() -> arena.accept(arena.getSecond(node), this),
+                    () -> arena.accept(arena.getThird(node), this));
+    }
+
+    @Override
+    public void visitWhile(int node) {
+        work.schedule(() -> arena.accept(arena.getSecond(node), this));
+    }
+
+    @Override
+    public void visitDoWhile(int node) {
+        work.schedule(() -> arena.accept(arena.getFirst(node), this));
+    }
+
+    /**
+     * Finds the temporary variables a statement of the intermediate code reads.
+     */
+    private static final class TempReads implements ASTVisitor {
+        private final WorkStack work = new WorkStack();
+        private final List<TempNode> temps = new ArrayList<>();
+
+        /**
+         * Find the temporary variables a statement reads.
+         *
+         * @param statement the statement of the intermediate code.
+         * @return the temporary variables it reads, which is only valid until the next call.
+         */
+        List<TempNode> of(StatementNode statement) {
+            temps.clear();
+            work.run(() -> statement.accept(this));
+            return temps;
+        }
+
+        @Override
+        public void visit(AssignmentNode node) {
+            // A temporary variable on the left is assigned, but an array index on the left is read.
+            if (!(node.left instanceof TempNode))
+                work.schedule(() -> node.left.accept(this));
+            work.schedule(() -> node.expression.accept(this));
+        }
+
+        @Override
+        public void visit(IfFalseNode node) {
+            work.schedule(() -> node.expression.accept(this));
+        }
+
+        @Override
+        public void visit(IfTrueNode node) {
+            work.schedule(() -> node.expression.accept(this));
+        }
+
+        @Override
+        public void visit(TempNode node) {
+            temps.add(node);
+        }
+
+        @Override
+        public void visit(LocNode node) {
+            if (node.array != null)
+                work.schedule(() -> node.array.accept(this));
+        }
+
+        @Override
+        public void visit(ArrayLocNode node) {
+            if (node.expression != null)
+                work.schedule(() -> node.expression.accept(this));
+            if (node.array != null)
+                work.schedule(() -> node.array.accept(this));
+        }
+
+        @Override
+        public void visit(BinaryExpressionNode node) {
+            work.schedule(() -> node.left.accept(this), () -> node.right.accept(this));
+        }
+
+        @Override
+        public void visit(UnaryNode node) {
+            work.schedule(() -> node.expression.accept(this));
+        }
+
+        @Override
+        public void visit(ParenthesisNode node) {
+            work.schedule(() -> node.expression.accept(this));
+        }
+    }
+}
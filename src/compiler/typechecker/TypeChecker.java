@@ -1,24 +1,25 @@
 package compiler.typechecker;
 
 import compiler.errors.*;
-import compiler.lexer.Tag;
 import compiler.lexer.tokens.*;
 import compiler.parser.Parser;
-import compiler.parser.ast.ASTVisitor;
-import compiler.parser.ast.nodes.*;
-import compiler.parser.ast.nodes.declarations.*;
-import compiler.parser.ast.nodes.expressions.*;
+import compiler.parser.ast.WorkStack;
+import compiler.parser.ast.arena.ArenaVisitor;
+import compiler.parser.ast.arena.AstArena;
 import compiler.parser.ast.nodes.expressions.operations.*;
-import compiler.parser.ast.nodes.statements.*;
 import compiler.parser.ast.nodes.structures.ProgramNode;
-import compiler.parser.ast.nodes.terminals.*;
-import compiler.symbols.SymbolTable;
+import compiler.symbols.Symbol;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A type checker responsible for validating types in the AST.
  *
+ * The AST is checked in its flat form, so the program is flattened into an AstArena first, if it has not been
+ * already. Each node is an index into the arena, and the type of each expression is stored in the arena as
+ * its basic type, which is all the passes after the type checker need.
+ *
  * The type checker specifically handles the following:
  * - Assignment of expressions to variables
  *    - Ensures the types match
@@ -33,11 +34,17 @@ import java.util.Set;
  *    - Ensures '!' operator has boolean operand
  *    - Ensures '-' operator has numeric operand
  *
- * The type checker works by recursively calling visit on each node until it reaches a terminal node
- * which the type can be known of, then it stores that type within the node, and then its parent node sets
+ * The type checker works by visiting each node's children before the node itself until it reaches a terminal
+ * node which the type can be known of, then it stores that type for the node, and then its parent node sets
  * its type to this child node that was visited. And this continues upwards until all expression nodes have
  * a type set. This is what allows the type checker to be able to compare compound expressions.
  *
+ * The children are scheduled on a work stack rather than visited by recursive calls, so deeply nested
+ * programs cannot overflow the call stack.
+ *
+ * A type error does not stop the type checker. The error is stored in errors, the rest of the statement
+ * it was found in is skipped, and checking carries on with the next statement.
+ *
  * For example: ((3 + 4.5) > 3)
  *  - It first visits 3 and sets its type to int
  *  - It then visits 4.5 and sets its type to float
@@ -47,14 +54,14 @@ import java.util.Set;
  *  - The final type of the parentheses node is boolean then in the end.
  *
  */
-public class TypeChecker implements ASTVisitor {
+public class TypeChecker implements ArenaVisitor {
     public ProgramNode program;
-    private SymbolTable currentSymbolTable;
-
-    // Sets for checking operators
-    private static final Set<String> LOGIC_OPERATORS = Set.of("&&", "||");
-    private static final Set<String> COMPARISON_OPERATORS = Set.of("==", "!=", "<", "<=", ">", ">=");
-    private static final Set<String> ARITHMETIC_OPERATORS = Set.of("+", "-", "*", "/");
+    // The flat AST of the program, which holds the type of each expression once it is checked.
+    private final AstArena arena;
+    // Nodes that are still to be checked, and the checks to make once their children are done.
+    private final WorkStack work = new WorkStack();
+    // Type errors found in the program, in the order they were found.
+    public final List<TypeException> errors = new ArrayList<>();
 
     /**
      * Creates a TypeChecker and immediately visits the program node from the given parser instance.
@@ -65,7 +72,10 @@ public class TypeChecker implements ASTVisitor {
      */
     public TypeChecker(Parser parser) {
         program = parser.program;
-        visit(program);
+        if (program.arena == null)
+            program.flatten();
+        arena = program.arena;
+        work.run(() -> arena.accept(arena.getRoot(), this));
     }
 
     // Helper Methods
@@ -79,38 +89,8 @@ public class TypeChecker implements ASTVisitor {
      * @param right Right side of the assignment.
      * @return True if left is float and right is int, false otherwise.
      */
-    public static Boolean isIntToFloatAssignment(TypeNode left, TypeNode right) {
-        return left.type == Type.Float && right.type == Type.Int;
-    }
-
-    /**
-     * Checks if the given string is a logical operator. (&&, ||)
-     *
-     * @param operator The operator to check.
-     * @return True if the operator is a logical operator, false otherwise.
-     */
-    private static Boolean isLogicOperator(String operator) {
-        return LOGIC_OPERATORS.contains(operator);
-    }
-
-    /**
-     * Checks if the given string is a comparison operator. (==, !=, <, <=, >, >=)
-     *
-     * @param operator The operator to check.
-     * @return True if the operator is a comparison operator, false otherwise.
-     */
-    private static Boolean isComparisonOperator(String operator) {
-        return COMPARISON_OPERATORS.contains(operator);
-    }
-
-    /**
-     * Checks if the given string is an arithmetic operator. (+, -, *, /)
-     *
-     * @param operator The operator to check.
-     * @return True if the operator is an arithmetic operator, false otherwise.
-     */
-    private static Boolean isArithmeticOperator(String operator) {
-        return ARITHMETIC_OPERATORS.contains(operator);
+    public static Boolean isIntToFloatAssignment(Type left, Type right) {
+        return left == Type.Float && right == Type.Int;
     }
 
     /**
@@ -124,33 +104,32 @@ public class TypeChecker implements ASTVisitor {
      * @param right The type of the right side.
      * @return The resulting type of the operation.
      */
-    private static Type resolveResultingType(TypeNode left, TypeNode right) {
-        if (left.type == Type.Float || right.type == Type.Float)
+    private static Type resolveResultingType(Type left, Type right) {
+        if (left == Type.Float || right == Type.Float)
             return Type.Float;
-        return left.type;
+        return left;
     }
 
-    // Validation Methods
-
     /**
-     * Validates that neither the left or right are arrays.
+     * Run the checks of a single statement, storing a type error instead of stopping if one is found.
      *
-     * Arrays cannot be used for assignment in this language.
+     * The checks are run on their own, so when one fails the checks still waiting for that statement are
+     * dropped, and the steps for the rest of the program are left to carry on with.
      *
-     * @param left Type of the left side of the assignment.
-     * @param right Type of the right side of the assignment.
-     * @param line Line number from source code.
-     * @throws TypeException If either side is an array.
+     * @param checks The checks of the statement, which may schedule more checks.
      */
-    private static void validateNotArrayAssignment(TypeNode left, TypeNode right, int line) {
-        if (left.isArray() || right.isArray())
-            throw new TypeException(
-                    """
-                    cannot assign arrays: attempted to assign '%s' to '%s'
-                    """.formatted(left, right),
-                    line);
+    private void checkStatement(Runnable checks) {
+        int waiting = work.size();
+        try {
+            work.run(checks);
+        } catch (TypeException e) {
+            work.truncate(waiting);
+            errors.add(e);
+        }
     }
 
+    // Validation Methods
+
     /**
      * Validates that the left and right are both the same type.
      *
@@ -159,8 +138,8 @@ public class TypeChecker implements ASTVisitor {
      * @param line Line number from source code.
      * @throws TypeException If the types do not match.
      */
-    private static void validateTypesMatchAssignment(TypeNode left, TypeNode right, int line) {
-        if (left.type != right.type)
+    private static void validateTypesMatchAssignment(Type left, Type right, int line) {
+        if (left != right)
             throw new TypeException(
                     """
                     type mismatch: cannot assign '%s' to '%s'
@@ -174,13 +153,15 @@ public class TypeChecker implements ASTVisitor {
      * All arrays should be accessed down to a single value. For example, if this is declared "int[5][5][5] x" then
      * it must be accessed with 3 dimensions too: x[1][2][3]. x[1], x[1][2][3][4], or x would all be invalid.
      *
-     * @param node The LocNode being accessed.
-     * @param declaredType The declared type of the LocNode's identifier.
+     * @param node The LOC node being accessed.
+     * @param symbol The symbol of the declaration of the location's identifier.
      * @throws TypeException If an array is accessed with the wrong number of dimensions.
      */
-    private static void validateArrayAccess(LocNode node, TypeNode declaredType) {
-        int declaredDepth = declaredType.getDepth();
-        int accessedDepth = node.getDepth();
+    private void validateArrayAccess(int node, Symbol symbol) {
+        int declaredDepth = symbol.type.getDepth();
+        int accessedDepth = 0;
+        for (int index = arena.getFirst(node); index != AstArena.NONE; index = arena.getSecond(index))
+            accessedDepth++;
 
         // Check for both cases to give a more descriptive error message.
         // If both of these are false, then the array was accessed correctly.
@@ -188,14 +169,14 @@ public class TypeChecker implements ASTVisitor {
             throw new TypeException(
                     """
                     '%s' cannot be accessed as a %d dimensional array; it is only a %d dimensional array
-                    """.formatted(node.id.word, accessedDepth, declaredDepth),
-                    node.getLine());
+                    """.formatted(symbol.id.word, accessedDepth, declaredDepth),
+                    arena.getLine(node));
         else if (declaredDepth > accessedDepth)
             throw new TypeException(
                     """
                     '%s' cannot be accessed as a %d dimensional array; it is a %d dimensional array
-                    """.formatted(node.id.word, accessedDepth, declaredDepth),
-                    node.getLine());
+                    """.formatted(symbol.id.word, accessedDepth, declaredDepth),
+                    arena.getLine(node));
     }
 
     /**
@@ -206,16 +187,16 @@ public class TypeChecker implements ASTVisitor {
      *
      * @param left The type of the left operand.
      * @param right The type of the right operand.
-     * @param node The BinaryExpressionNode being validated.
+     * @param node The BINARY node being validated.
      * @throws TypeException If the operands are not boolean for a logical operator.
      */
-    private static void validateLogicOperator(TypeNode left, TypeNode right, BinaryExpressionNode node) {
-        if (left.type != Type.Bool || right.type != Type.Bool)
+    private void validateLogicOperator(Type left, Type right, int node) {
+        if (left != Type.Bool || right != Type.Bool)
             throw new TypeException(
                     """
                     logical operator '%s' expects boolean types, not '%s' and '%s'
-                    """.formatted(node.operator, left, right),
-                    node.getLine());
+                    """.formatted(Operator.binary(arena.getPayload(node)), left, right),
+                    arena.getLine(node));
     }
 
     /**
@@ -223,17 +204,16 @@ public class TypeChecker implements ASTVisitor {
      *
      * @param left The type of the left operand.
      * @param right The type of the right operand.
-     * @param node The BinaryExpressionNode being validated.
+     * @param node The BINARY node being validated.
      * @throws TypeException If the operands are not the same type for a comparison operator.
      */
-    private static void validateComparisonOperator(TypeNode left, TypeNode right, BinaryExpressionNode node) {
-        if (left.type != right.type)
+    private void validateComparisonOperator(Type left, Type right, int node) {
+        if (left != right)
             throw new TypeException(
                     """
                     comparison operator '%s' expects same types, not '%s' and '%s'
-                    """.formatted(node.operator, left, right),
-                    node.getLine());
-        node.setType(Type.Bool);
+                    """.formatted(Operator.binary(arena.getPayload(node)), left, right),
+                    arena.getLine(node));
     }
 
     /**
@@ -241,161 +221,159 @@ public class TypeChecker implements ASTVisitor {
      *
      * @param left The type of the left operand.
      * @param right The type of the right operand.
-     * @param node The BinaryExpressionNode being validated.
+     * @param node The BINARY node being validated.
      * @throws TypeException If the operands are not both numeric for an arithmetic operator.
      */
-    private static void validateArithmeticOperator(TypeNode left, TypeNode right, BinaryExpressionNode node) {
-        if (!Type.isNumeric(left.type) || !Type.isNumeric(right.type))
+    private void validateArithmeticOperator(Type left, Type right, int node) {
+        if (!Type.isNumeric(left) || !Type.isNumeric(right))
             throw new TypeException(
                     """
                     arithmetic operator '%s' expects numeric types, not '%s' and '%s'
-                    """.formatted(node.operator, left, right),
-                    node.getLine());
+                    """.formatted(Operator.binary(arena.getPayload(node)), left, right),
+                    arena.getLine(node));
     }
 
     /**
      * Validate that the expression is boolean for a '!' operator.
      *
-     * @param node The UnaryNode to validate.
+     * @param node The UNARY node to validate.
      * @throws TypeException If the expression is not boolean for a '!' operator.
      */
-    private static void validateNotOperator(UnaryNode node) {
-        if (node.getType().type != Type.Bool)
+    private void validateNotOperator(int node) {
+        if (arena.getType(node) != Type.Bool)
             throw new TypeException(
                     """
                     '!' operator expects boolean type, not '%s'
-                    """.formatted(node.getType()),
-                    node.getLine());
+                    """.formatted(arena.getType(node)),
+                    arena.getLine(node));
     }
 
     /**
      * Validate that the expression is numeric for a '-' operator.
      *
-     * @param node The UnaryNode to validate.
+     * @param node The UNARY node to validate.
      * @throws TypeException If the expression is not numeric for a '-' operator.
      */
-    private static void validateNegationOperator(UnaryNode node) {
-        if (!Type.isNumeric(node.getType().type))
+    private void validateNegationOperator(int node) {
+        if (!Type.isNumeric(arena.getType(node)))
             throw new TypeException(
                     """
                     unary '-' operator expects numeric type, not '%s'
-                    """.formatted(node.getType()),
-                    node.getLine());
+                    """.formatted(arena.getType(node)),
+                    arena.getLine(node));
     }
 
     // Visit methods
 
     /**
-     * Visits a ProgramNode, the entry point of the AST, and immediately visits its block.
+     * Visits a BLOCK node, checking the types of each statement within it.
      *
-     * @param node The ProgramNode to visit.
+     * The declarations are not checked, so the only things visited are the statements. Each are
+     * visited to ensure they are valid. The identifiers in them were resolved to their declarations by the
+     * parser, so the block has no scope to open.
+     *
+     * @param node The BLOCK node to visit.
      */
     @Override
-    public void visit(ProgramNode node) {
-        node.block.accept(this);
+    public void visitBlock(int node) {
+        work.scheduleVisits(arena, arena.getSecond(node), this);
     }
 
     /**
-     * Visits a BlockNode, checking the types of each statement within it.
-     *
-     * The declarations can be ignored for the type checker, so the only things visited
-     * are the statements. Each are visited to ensure they are valid.
+     * Visits an ASSIGNMENT node, checking the types are compatible.
      *
-     * The symbol table is retrieved from the BlockNode and used so that the visited statements
-     * can access their correct symbol table they were created in.
+     * The left LOC node and the right expression are visited to get their types and then
+     * these two types are validated to ensure the expression can be assigned to the left.
      *
-     * @param node The BlockNode to visit.
+     * @param node The ASSIGNMENT node to visit.
+     * @throws TypeException If the types are incompatible for assignment.
      */
     @Override
-    public void visit(BlockNode node) {
-        currentSymbolTable = node.table;
-        for (StatementNode stmt : node.statements)
-            stmt.accept(this);
-        currentSymbolTable = currentSymbolTable.previousTable;
+    public void visitAssignment(int node) {
+        checkStatement(() -> work.schedule(() -> arena.accept(arena.getFirst(node), this),
+                () -> arena.accept(arena.getSecond(node), this), () -> checkAssignment(node)));
     }
 
     /**
-     * Visits an assignment node, checking the types are compatible.
+     * Validate the types of an ASSIGNMENT node, once both of its sides have been visited.
      *
-     * The left LocNode and the right ExpressionNode are visited to get their types and then
-     * these two types are validated to ensure the expression can be assigned to the left.
+     * A location always has a basic type, as it must be accessed down to a single value, so an array is never
+     * assigned.
      *
-     * @param node The AssignmentNode to visit.
+     * @param node The ASSIGNMENT node to validate.
      * @throws TypeException If the types are incompatible for assignment.
      */
-    @Override
-    public void visit(AssignmentNode node) {
-        node.left.accept(this);
-        node.expression.accept(this);
-
-        TypeNode leftType = node.left.getType();
-        TypeNode rightType = node.expression.getType();
-
-        validateNotArrayAssignment(leftType, rightType, node.getLine());
+    private void checkAssignment(int node) {
+        Type leftType = arena.getType(arena.getFirst(node));
+        Type rightType = arena.getType(arena.getSecond(node));
 
         if (isIntToFloatAssignment(leftType, rightType))
             return;
 
-        validateTypesMatchAssignment(leftType, rightType, node.getLine());
+        validateTypesMatchAssignment(leftType, rightType, arena.getLine(node));
     }
 
     /**
-     * Visit an IfNode, visiting its body and expression and optional else statement to
+     * Visit an IF node, visiting its body and expression and optional else statement to
      * ensure they are valid.
      *
-     * @param node The IfNode to visit.
+     * @param node The IF node to visit.
      */
     @Override
-    public void visit(IfNode node) {
-        node.expression.accept(this);
-        node.thenStatement.accept(this);
-        if (node.elseStatement != null) {
-            node.elseStatement.accept(this);
-        }
+    public void visitIf(int node) {
+        checkStatement(() -> arena.accept(arena.getFirst(node), this));
+        if (arena.getThird(node) != AstArena.NONE)
+            work.schedule(() -> arena.accept(arena.getSecond(node), this),
+                    () -> arena.accept(arena.getThird(node), this));
+        else
+            work.schedule(() -> arena.accept(arena.getSecond(node), this));
     }
 
     /**
-     * Visit a WhileNode, visiting its body and expression to ensure they are valid.
+     * Visit a WHILE node, visiting its body and expression to ensure they are valid.
      *
-     * @param node The WhileNode to visit.
+     * @param node The WHILE node to visit.
      */
     @Override
-    public void visit(WhileNode node) {
-        node.expression.accept(this);
-        node.body.accept(this);
+    public void visitWhile(int node) {
+        checkStatement(() -> arena.accept(arena.getFirst(node), this));
+        work.schedule(() -> arena.accept(arena.getSecond(node), this));
     }
 
     /**
-     * Visit a DoWhileNode, visiting its body and expression to ensure they are valid.
+     * Visit a DO_WHILE node, visiting its body and expression to ensure they are valid.
      *
-     * @param node The DoWhileNode to visit.
+     * @param node The DO_WHILE node to visit.
      */
     @Override
-    public void visit(DoWhileNode node) {
-        node.body.accept(this);
-        node.expression.accept(this);
+    public void visitDoWhile(int node) {
+        work.schedule(() -> arena.accept(arena.getFirst(node), this),
+                () -> checkStatement(() -> arena.accept(arena.getSecond(node), this)));
     }
 
     /**
-     * Visit a LocNode, setting its type to the type of its id and validating that the array access is valid.
+     * Visit a LOC node, setting its type to the type of its declaration and validating that the array access
+     * is valid.
      *
-     * Ensures that the array is accessed with the correct number of dimensions and valid indices.
+     * Ensures that the array is accessed with the correct number of dimensions and valid indices. The
+     * declaration is given the basic type of its variable as well, to mark that its identifier was resolved.
      *
-     * @param node The LocNode to visit.
+     * @param node The LOC node to visit.
      * @throws TypeException If the array access is invalid.
      */
     @Override
-    public void visit(LocNode node) {
-        node.id.accept(this);
-        TypeNode declaredType = node.id.getType();
+    public void visitLoc(int node) {
+        int decl = arena.getPayload(node);
+        Symbol symbol = arena.getSymbol(decl);
+        arena.setType(decl, symbol.type.type);
 
-        validateArrayAccess(node, declaredType);
+        validateArrayAccess(node, symbol);
 
-        node.setType(declaredType.type);
+        arena.setType(node, symbol.type.type);
     }
 
     /**
-     * Visit a binary node, setting its type to the type of its expression and validating that the
+     * Visit a BINARY node, setting its type to the type of its expression and validating that the
      * operands match the operator.
      *
      * Ensures that logical operators like && and || have boolean operands, comparison operators like
@@ -404,111 +382,121 @@ public class TypeChecker implements ASTVisitor {
      * The method also makes sure that the resulting type of logic/comparison operators is boolean, and the
      * resulting type of arithmetic operators is resolved as a float or int.
      *
-     * @param node The BinaryExpressionNode to visit.
+     * @param node The BINARY node to visit.
      * @throws TypeException If the operands do not match the operator.
      */
     @Override
-    public void visit(BinaryExpressionNode node) {
-        node.left.accept(this);
-        node.right.accept(this);
-
-        TypeNode left = node.left.getType();
-        TypeNode right = node.right.getType();
-
-
+    public void visitBinary(int node) {
+        work.schedule(() -> arena.accept(arena.getFirst(node), this),
+                () -> arena.accept(arena.getSecond(node), this), () -> checkBinaryExpression(node));
+    }
 
-        if (isLogicOperator(node.operator)) {
-            validateLogicOperator(left, right, node);
-            node.setType(Type.Bool);
-        }
-        else if (isComparisonOperator(node.operator)) {
-            validateComparisonOperator(left, right, node);
-            node.setType(Type.Bool);
-        }
-        else if (isArithmeticOperator(node.operator)) {
-            validateArithmeticOperator(left, right, node);
-            node.setType(resolveResultingType(left, right));
+    /**
+     * Validate the operands of a BINARY node and set its type, once both operands have been visited.
+     *
+     * @param node The BINARY node to validate.
+     * @throws TypeException If the operands do not match the operator.
+     */
+    private void checkBinaryExpression(int node) {
+        Type left = arena.getType(arena.getFirst(node));
+        Type right = arena.getType(arena.getSecond(node));
+        Operator operator = Operator.binary(arena.getPayload(node));
+
+        switch (operator) {
+            case AND, OR -> {
+                validateLogicOperator(left, right, node);
+                arena.setType(node, Type.Bool);
+            }
+            case EQ, NE, LT, LE, GT, GE -> {
+                validateComparisonOperator(left, right, node);
+                arena.setType(node, Type.Bool);
+            }
+            case ADD, SUB, MUL, DIV -> {
+                validateArithmeticOperator(left, right, node);
+                arena.setType(node, resolveResultingType(left, right));
+            }
+            default -> throw new IllegalStateException("Unknown binary operator: " + operator);
         }
     }
 
     /**
-     * Visit a unary node, setting its type to the type of its expression and validating
+     * Visit a UNARY node, setting its type to the type of its expression and validating
      * that the correct types are being used for the operator.
      *
-     * @param node The UnaryNode to visit.
+     * @param node The UNARY node to visit.
      * @throws TypeException If a non-numeric is used with '-' or a non-boolean is used with '!'
      */
     @Override
-    public void visit(UnaryNode node) {
-        node.expression.accept(this);
-        node.setType(node.expression);
-
-        // Ensure the correct types are being used for the operator.
-        if (node.operator.tag == Tag.NOT)
-            validateNotOperator(node);
-        else if (node.operator.tag == Tag.SUB)
-            validateNegationOperator(node);
+    public void visitUnary(int node) {
+        work.schedule(() -> arena.accept(arena.getFirst(node), this), () -> checkUnary(node));
     }
 
     /**
-     * Visit a ParenthesisNode, setting its type to the type of its expression.
+     * Set the type of a UNARY node and validate it, once its expression has been visited.
      *
-     * @param node The ParenthesisNode to visit.
+     * @param node The UNARY node to validate.
+     * @throws TypeException If the expression does not match the operator.
      */
-    @Override
-    public void visit(ParenthesisNode node) {
-        node.expression.accept(this);
-        node.setType(node.expression);
-    }
+    private void checkUnary(int node) {
+        arena.setType(node, arena.getType(arena.getFirst(node)));
+        Operator operator = Operator.unary(arena.getPayload(node));
 
+        // Ensure the correct types are being used for the operator.
+        switch (operator) {
+            case NOT -> validateNotOperator(node);
+            case NEGATE -> validateNegationOperator(node);
+            default -> throw new IllegalStateException("Unknown unary operator: " + operator);
+        }
+    }
 
     /**
-     * Visit an IdNode, retrieving its type from the symbol table.
+     * Visit a PARENTHESIS node, setting its type to the type of its expression.
      *
-     * @param node The IdNode to visit.
+     * @param node The PARENTHESIS node to visit.
      */
     @Override
-    public void visit(IdNode node) {
-        node.setType(currentSymbolTable.getSymbol(node.word));
+    public void visitParenthesis(int node) {
+        work.schedule(() -> arena.accept(arena.getFirst(node), this),
+                () -> arena.setType(node, arena.getType(arena.getFirst(node))));
     }
 
     /**
-     * Visit a NumNode, setting its type to int.
+     * Visit a NUM node, setting its type to int.
      *
-     * @param node The NumNode to visit.
+     * @param node The NUM node to visit.
      */
     @Override
-    public void visit(NumNode node) {
-        node.setType(Type.Int);
+    public void visitNum(int node) {
+        arena.setType(node, Type.Int);
     }
 
     /**
-     * Visit a RealNode, setting its type to float.
+     * Visit a REAL node, setting its type to float.
      *
-     * @param node The RealNode to visit.
+     * @param node The REAL node to visit.
      */
     @Override
-    public void visit(RealNode node) {
-        node.setType(Type.Float);
+    public void visitReal(int node) {
+        arena.setType(node, Type.Float);
     }
 
     /**
-     * Visit a FalseNode, setting its type to boolean.
+     * Visit a FALSE node, setting its type to boolean.
      *
-     * @param node The FalseNode to visit.
+     * @param node The FALSE node to visit.
      */
     @Override
-    public void visit(FalseNode node) {
-        node.setType(Type.Bool);
+    public void visitFalse(int node) {
+        arena.setType(node, Type.Bool);
     }
 
     /**
-     * Visit a TrueNode, setting its type to boolean.
+     * Visit a TRUE node, setting its type to boolean.
      *
-     * @param node The TrueNode to visit.
+     * @param node The TRUE node to visit.
      */
     @Override
-    public void visit(TrueNode node) {
-        node.setType(Type.Bool);
+    public void visitTrue(int node) {
+        arena.setType(node, Type.Bool);
     }
 }